@@ -0,0 +1,111 @@
+package com.dio.bookstore.benchmark;
+
+import com.dio.bookstore.BookstoreApplication;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.BookImportProgressDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.enums.ImportFormat;
+import com.dio.bookstore.exceptions.BookAlreadyRegisteredException;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.service.BookImportService;
+import com.dio.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Insert throughput in books per second for a single {@link BookService#createBook} call,
+ * a {@code saveAll} of one bulk chunk and a CSV import of the same size. Allocation size 1
+ * with batching off is the per-row baseline, the closest this mapping gets to the former
+ * IDENTITY ids; allocation size 50 with a batch size of 50 is the shipped configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookInsertBenchmark {
+
+    private static final int BULK_SIZE = 1000;
+
+    @Param({"1", "50"})
+    private int allocationSize;
+
+    @Param({"0", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private BookImportService bookImportService;
+    private final AtomicLong createdBooks = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(),
+                        "bookstore.id.allocation-size=" + allocationSize,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        bookImportService = context.getBean(BookImportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO createBook() throws BookAlreadyRegisteredException {
+        return bookService.createBook(new BookDTO(null, nextTitle(), "Benchmark Author", 10, 5, BookType.Fantasy));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<Book> saveAllChunk() {
+        List<Book> books = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            books.add(new Book(null, nextTitle(), "Benchmark Author", 10, 5, BookType.Fantasy, 0L));
+        }
+        return bookRepository.saveAll(books);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public BookImportProgressDTO importChunk() throws IOException {
+        StringBuilder csv = new StringBuilder("title,author,max,quantity,genre\n");
+        for (int i = 0; i < BULK_SIZE; i++) {
+            csv.append(nextTitle()).append(",Benchmark Author,10,5,Fantasy\n");
+        }
+        return bookImportService.importBooks(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.CSV, progress -> { });
+    }
+
+    private String nextTitle() {
+        return "Inserted " + createdBooks.incrementAndGet();
+    }
+}
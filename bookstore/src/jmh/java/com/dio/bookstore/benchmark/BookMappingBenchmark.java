@@ -0,0 +1,70 @@
+package com.dio.bookstore.benchmark;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.mapper.BookMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookMappingBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int listSize;
+
+    private final BookMapper bookMapper = BookMapper.INSTANCE;
+    private Book book;
+    private BookDTO bookDTO;
+    private List<BookDTO> bookDTOs;
+    private ObjectWriter bookWriter;
+    private ObjectWriter bookListWriter;
+
+    @Setup
+    public void setUp() {
+        book = new Book(1L, "O Senhor dos Aneis", "J. R. R. Tolkien", 10, 2, BookType.Fantasy, 0L);
+        bookDTO = bookMapper.toDTO(book);
+        bookDTOs = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            bookDTOs.add(new BookDTO(id, "Benchmark Title " + id, "Benchmark Author", 10, 2, BookType.Fantasy));
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        bookWriter = objectMapper.writerFor(BookDTO.class);
+        bookListWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, BookDTO.class));
+    }
+
+    @Benchmark
+    public BookDTO toDTO() {
+        return bookMapper.toDTO(book);
+    }
+
+    @Benchmark
+    public Book toModel() {
+        return bookMapper.toModel(bookDTO);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() throws JsonProcessingException {
+        return bookWriter.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public byte[] serializeBookList() throws JsonProcessingException {
+        return bookListWriter.writeValueAsBytes(bookDTOs);
+    }
+}
@@ -0,0 +1,134 @@
+package com.dio.bookstore.benchmark;
+
+import com.dio.bookstore.BookstoreApplication;
+import com.dio.bookstore.dto.BatchGetResultDTO;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.exceptions.BookAlreadyRegisteredException;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.service.BookService;
+import com.dio.bookstore.store.BookStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookServiceBenchmark {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+    private static final int CACHED_TITLES = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    @Param({"jpa", "mvstore"})
+    private String store;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private long[] ids;
+    private final AtomicLong createdBooks = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "bookstore.store=" + store,
+                        "bookstore.store.mvstore.file=")
+                .run();
+        bookService = context.getBean(BookService.class);
+        ids = seedCatalog(context.getBean(BookStore.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO createBook() throws BookAlreadyRegisteredException {
+        long sequence = createdBooks.incrementAndGet();
+        return bookService.createBook(new BookDTO(null, "Created " + sequence, "Benchmark Author", 10, 5, BookType.Fantasy));
+    }
+
+    /**
+     * Looks up titles from a set small enough to stay in the title cache, so after the first
+     * iteration nearly every call is a cache hit.
+     */
+    @Benchmark
+    public BookDTO findByTitleCached() throws BookNotFoundException {
+        return bookService.findByTitle(titleOf(ThreadLocalRandom.current().nextInt(Math.min(catalogSize, CACHED_TITLES))));
+    }
+
+    /**
+     * Looks up titles that do not exist. Misses are not cached, so every call goes through
+     * the cache to the store.
+     */
+    @Benchmark
+    public boolean findByTitleMiss() {
+        try {
+            bookService.findByTitle(titleOf(catalogSize + ThreadLocalRandom.current().nextInt(catalogSize)));
+            return true;
+        } catch (BookNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public BatchGetResultDTO batchGetOne() {
+        return bookService.batchGet(Collections.singletonList(ids[ThreadLocalRandom.current().nextInt(ids.length)]), Collections.emptyList());
+    }
+
+    @Benchmark
+    public BookDTO incrementThenDecrement() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        bookService.increment(id, 1);
+        return bookService.decrement(id, 1);
+    }
+
+    private long[] seedCatalog(BookStore bookStore) {
+        long[] seededIds = new long[catalogSize];
+        BookType[] genres = BookType.values();
+        for (int start = 0; start < catalogSize; start += SEED_CHUNK_SIZE) {
+            List<Book> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+            for (int i = start; i < Math.min(start + SEED_CHUNK_SIZE, catalogSize); i++) {
+                chunk.add(new Book(null, titleOf(i), "Author " + (i % 500), 10, 5, genres[i % genres.length], 0L));
+            }
+            List<Book> savedChunk = bookStore.insertAll(chunk);
+            for (int i = 0; i < savedChunk.size(); i++) {
+                seededIds[start + i] = savedChunk.get(i).getId();
+            }
+        }
+        return seededIds;
+    }
+
+    private static String titleOf(int index) {
+        return "Benchmark Title " + index;
+    }
+}
@@ -0,0 +1,84 @@
+package com.dio.bookstore.benchmark;
+
+import com.dio.bookstore.config.WireFormatConfig;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookType;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and Smile encodings of a {@code BookDTO} list as served by
+ * {@code GET /api/books}. Encoded sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookWireFormatBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int listSize;
+
+    private List<BookDTO> bookDTOs;
+    private ObjectWriter jsonWriter;
+    private ObjectWriter smileWriter;
+    private ObjectReader jsonReader;
+    private ObjectReader smileReader;
+    private byte[] json;
+    private byte[] smile;
+
+    @Setup
+    public void setUp() throws IOException {
+        BookType[] genres = BookType.values();
+        bookDTOs = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            bookDTOs.add(new BookDTO(id * 7919, "Benchmark Title " + id, "Benchmark Author " + id % 50, 100, (int) (id % 100), genres[(int) (id % genres.length)]));
+        }
+        ObjectMapper jsonMapper = new Jackson2ObjectMapperBuilder().build();
+        ObjectMapper smileMapper = WireFormatConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+        JavaType listType = jsonMapper.getTypeFactory().constructCollectionType(List.class, BookDTO.class);
+        jsonWriter = jsonMapper.writerFor(listType);
+        smileWriter = smileMapper.writerFor(listType);
+        jsonReader = jsonMapper.readerFor(listType);
+        smileReader = smileMapper.readerFor(listType);
+        json = jsonWriter.writeValueAsBytes(bookDTOs);
+        smile = smileWriter.writeValueAsBytes(bookDTOs);
+        System.out.printf("%nlistSize=%d json=%d bytes smile=%d bytes (%.0f%%)%n",
+                listSize, json.length, smile.length, 100.0 * smile.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(bookDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeSmile() throws IOException {
+        return smileWriter.writeValueAsBytes(bookDTOs);
+    }
+
+    @Benchmark
+    public List<BookDTO> deserializeJson() throws IOException {
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public List<BookDTO> deserializeSmile() throws IOException {
+        return smileReader.readValue(smile);
+    }
+}
@@ -0,0 +1,49 @@
+package com.dio.bookstore.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs every benchmark once per configured thread count and writes one JSON result
+ * file per run, with the GC profiler enabled so allocation rates are reported
+ * next to throughput.
+ *
+ * <p>Usage: {@code mvn -Pbenchmark -DskipTests verify -Djmh.threads=1,8 -Djmh.include=BookMapping}
+ */
+public class BookstoreBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", ".*Benchmark.*");
+        File resultDir = new File(System.getProperty("jmh.resultDir", "target/jmh"));
+        resultDir.mkdirs();
+
+        int[] threadCounts = Arrays.stream(System.getProperty("jmh.threads", "1,4,16").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(2))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(2))
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "result-threads-" + threads + ".json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.dio.bookstore.benchmark;
+
+import com.dio.bookstore.BookstoreApplication;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.store.BookStore;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the web execution modes under load. For each mode the application is started on a
+ * random port over an in-memory H2 catalog, and for each concurrency that many clients send
+ * keyset page requests back to back, each one a JDBC query, for the configured duration.
+ * The clients use the asynchronous {@link HttpClient} on two threads, so they add no thread
+ * per connection to the counts.
+ *
+ * <p>With more than one mode, each is measured in its own JVM. Reports throughput, latency
+ * percentiles, failed requests and the peak number of live platform threads, one line per
+ * mode and concurrency, and writes them to {@code target/jmh/execution-modes.md}.
+ *
+ * <p>Usage: {@code mvn -Pbenchmark -DskipTests verify -Dbenchmark.main=com.dio.bookstore.benchmark.ExecutionModeLoadTest
+ * -Dload.modes=blocking,virtual -Dload.concurrency=200,1000,4000}
+ */
+public class ExecutionModeLoadTest {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+    private static final int PAGE_SIZE = 20;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> modes = list(System.getProperty("load.modes", "blocking,virtual"));
+        int[] concurrencies = list(System.getProperty("load.concurrency", "200,1000,4000")).stream().mapToInt(Integer::parseInt).toArray();
+        Duration warmup = DurationStyle.detectAndParse(System.getProperty("load.warmup", "30s"));
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("load.duration", "20s"));
+        int catalogSize = Integer.parseInt(System.getProperty("load.catalog-size", "10000"));
+        Path resultFile = Paths.get(System.getProperty("jmh.resultDir", "target/jmh"), "execution-modes.md");
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Java %s, %d CPUs, %d books, %s per run after %s of warm-up",
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(), catalogSize, duration, warmup));
+        lines.add("");
+        lines.add("| mode | clients | requests/s | p50 ms | p99 ms | max ms | failed | peak threads |");
+        lines.add("|---|---|---|---|---|---|---|---|");
+        for (String mode : modes) {
+            lines.addAll(modes.size() == 1 ? measure(mode, concurrencies, warmup, duration, catalogSize) : fork(mode));
+        }
+        Files.createDirectories(resultFile.getParent());
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(resultFile))) {
+            lines.forEach(writer::println);
+        }
+    }
+
+    private static List<String> measure(String mode, int[] concurrencies, Duration warmup, Duration duration, int catalogSize)
+            throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        try (ConfigurableApplicationContext context = start(mode)) {
+            long maxId = seedCatalog(context.getBean(BookStore.class), catalogSize);
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/books");
+            for (int concurrency : concurrencies) {
+                run(base, maxId, concurrency, warmup);
+                Result result = run(base, maxId, concurrency, duration);
+                String line = String.format("| %s | %d | %.0f | %.1f | %.1f | %.1f | %d | %d |",
+                        mode, concurrency, result.throughput(), result.percentile(0.50), result.percentile(0.99),
+                        result.percentile(1.0), result.failed.get(), result.peakThreads);
+                System.out.println(line);
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Measures one mode in a new JVM, so the code compiled while measuring one mode does not
+     * speed up the next.
+     */
+    private static List<String> fork(String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path")));
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("load.") || name.startsWith("jmh."))
+                .filter(name -> !name.equals("load.modes"))
+                .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.add("-Dload.modes=" + mode);
+        command.add(ExecutionModeLoadTest.class.getName());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("| " + mode + " ")) {
+                    lines.add(line);
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Measuring " + mode + " failed with exit code " + process.exitValue());
+        }
+        return lines;
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        return new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID(),
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--bookstore.web.execution-mode=" + mode);
+    }
+
+    private static Result run(URI base, long maxId, int concurrency, Duration duration) throws InterruptedException {
+        ExecutorService clientThreads = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "load-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        Result result = new Result();
+        long startTime = System.nanoTime();
+        long endTime = startTime + duration.toNanos();
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            send(client, base, maxId, endTime, result, finished);
+        }
+        finished.await();
+        result.elapsedNanos = System.nanoTime() - startTime;
+        result.peakThreads = threads.getPeakThreadCount();
+        clientThreads.shutdownNow();
+        return result;
+    }
+
+    private static void send(HttpClient client, URI base, long maxId, long endTime, Result result, CountDownLatch finished) {
+        if (System.nanoTime() >= endTime) {
+            finished.countDown();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "?after=" + ThreadLocalRandom.current().nextLong(maxId) + "&limit=" + PAGE_SIZE))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long sentAt = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            result.record(System.nanoTime() - sentAt, error == null && response.statusCode() == 200);
+            send(client, base, maxId, endTime, result, finished);
+        });
+    }
+
+    private static long seedCatalog(BookStore bookStore, int catalogSize) {
+        BookType[] genres = BookType.values();
+        long maxId = 0L;
+        for (int start = 0; start < catalogSize; start += SEED_CHUNK_SIZE) {
+            List<Book> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+            for (int i = start; i < Math.min(start + SEED_CHUNK_SIZE, catalogSize); i++) {
+                chunk.add(new Book(null, "Load Title " + i, "Author " + (i % 500), 10, 5, genres[i % genres.length], 0L));
+            }
+            for (Book book : bookStore.insertAll(chunk)) {
+                maxId = Math.max(maxId, book.getId());
+            }
+        }
+        return maxId;
+    }
+
+    private static List<String> list(String values) {
+        return Arrays.asList(values.split("\\s*,\\s*"));
+    }
+
+    private static final class Result {
+
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicInteger failed = new AtomicInteger();
+        private long elapsedNanos;
+        private int peakThreads;
+
+        void record(long latencyNanos, boolean succeeded) {
+            latencies.add(latencyNanos);
+            completed.incrementAndGet();
+            if (!succeeded) {
+                failed.incrementAndGet();
+            }
+        }
+
+        double throughput() {
+            return completed.get() / (elapsedNanos / 1e9);
+        }
+
+        double percentile(double fraction) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+            return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(index, 0)]) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.dio.bookstore.benchmark;
+
+import com.dio.bookstore.BookstoreApplication;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a stock mutation with and without the stock journal, so the cost the journal
+ * adds to the write path can be read off directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StockJournalBenchmark {
+
+    private static final int CATALOG_SIZE = 1000;
+
+    @Param({"false", "true"})
+    private boolean journal;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "bookstore.stock.journal.enabled=" + journal)
+                .run();
+        bookService = context.getBean(BookService.class);
+        ids = seedCatalog(context.getBean(BookRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO incrementThenDecrement() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        bookService.increment(id, 1);
+        return bookService.decrement(id, 1);
+    }
+
+    private static long[] seedCatalog(BookRepository bookRepository) {
+        List<Book> books = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            books.add(new Book(null, "Journal Title " + i, "Author " + (i % 50), 10, 5, BookType.Fantasy, 0L));
+        }
+        return bookRepository.saveAll(books).stream().mapToLong(Book::getId).toArray();
+    }
+}
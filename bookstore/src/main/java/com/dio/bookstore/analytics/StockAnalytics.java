@@ -0,0 +1,224 @@
+package com.dio.bookstore.analytics;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockAnalyticsDTO;
+import com.dio.bookstore.dto.StockTotalsDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.service.StockUpdater;
+import com.dio.bookstore.store.BookStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running stock totals per genre and per author, moved by each book change event: a created
+ * book adds its title, quantity and max, a stock change adds its delta and a deleted book
+ * takes its values back out. Reads copy the totals without touching the store.
+ *
+ * <p>The totals start from the catalog read by the warm-up. A reconciliation pass recomputes
+ * them from the store every interval, with the stock held by the {@link StockUpdater}, since
+ * the ledger writes stock to the store after the event. Both stores scan a snapshot taken
+ * when the scan starts, so events applied while it runs are added to the scanned totals,
+ * except stock changes to a book whose live stock was read after them. What timing still
+ * gets wrong differs from pass to pass, so a difference is only corrected when the next pass
+ * finds the same one, and it is then added to the running totals.
+ */
+@Slf4j
+@Component
+public class StockAnalytics {
+
+    public static final int MAX_AUTHORS_PAGE = 1000;
+
+    private final BookStore bookStore;
+    private final StockUpdater stockUpdater;
+    private final Duration reconcileInterval;
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-analytics-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter matched;
+    private final Counter corrected;
+    private final Counter discarded;
+    private final Counter unconfirmed;
+
+    private StockTotals totals = new StockTotals();
+    private boolean loaded;
+    private boolean missedEvents;
+    private StockTotals unconfirmedDrift;
+    private List<BookChangedEvent> eventsDuringPass;
+    private Map<Long, Integer> liveStockReadAt;
+
+    public StockAnalytics(BookStore bookStore,
+                          StockUpdater stockUpdater,
+                          MeterRegistry meterRegistry,
+                          @Value("${bookstore.analytics.reconcile-interval:10m}") Duration reconcileInterval) {
+        this.bookStore = bookStore;
+        this.stockUpdater = stockUpdater;
+        this.reconcileInterval = reconcileInterval;
+        this.matched = meterRegistry.counter("bookstore.analytics.reconciliations", "result", "matched");
+        this.corrected = meterRegistry.counter("bookstore.analytics.reconciliations", "result", "corrected");
+        this.discarded = meterRegistry.counter("bookstore.analytics.reconciliations", "result", "discarded");
+        this.unconfirmed = meterRegistry.counter("bookstore.analytics.reconciliations", "result", "unconfirmed");
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = reconcileInterval.toMillis();
+        reconciler.scheduleWithFixedDelay(this::scheduledReconcile, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reconciler.shutdownNow();
+    }
+
+    /**
+     * Starts the totals from the catalog read at startup. Events that arrived before are not in
+     * the totals, so a reconciliation is run right away when there were any.
+     */
+    public void load(Collection<BookDTO> books) {
+        StockTotals loadedTotals = new StockTotals();
+        books.forEach(book -> loadedTotals.add(book.getGenre(), book.getAuthor(), 1, book.getQuantity(), book.getMax()));
+        boolean reconcileNow;
+        synchronized (this) {
+            totals = loadedTotals;
+            loaded = true;
+            unconfirmedDrift = null;
+            reconcileNow = missedEvents;
+        }
+        if (reconcileNow) {
+            reconciler.execute(this::scheduledReconcile);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (!loaded) {
+            missedEvents = true;
+            return;
+        }
+        apply(totals, event);
+        if (eventsDuringPass != null) {
+            eventsDuringPass.add(event);
+        }
+    }
+
+    public synchronized StockAnalyticsDTO summary() {
+        return new StockAnalyticsDTO(totals.total(), totals.genres());
+    }
+
+    /**
+     * Up to {@code limit} authors sorted after {@code after}, with their totals.
+     */
+    public synchronized List<StockTotalsDTO> authors(String after, int limit) {
+        return totals.authors(after == null ? "" : after, Math.min(Math.max(limit, 1), MAX_AUTHORS_PAGE));
+    }
+
+    /**
+     * Recomputes the totals from the store, brings in the events applied meanwhile, and adds
+     * the difference to the running totals if the previous pass found the same one.
+     *
+     * @return whether the pass could be compared, i.e. the totals were loaded when it started
+     */
+    public boolean reconcile() {
+        synchronized (reconciler) {
+            synchronized (this) {
+                if (!loaded) {
+                    discarded.increment();
+                    return false;
+                }
+                eventsDuringPass = new ArrayList<>();
+                liveStockReadAt = new HashMap<>();
+            }
+            try {
+                StockTotals storedTotals = new StockTotals();
+                bookStore.forEachOrderedById(book -> {
+                    Book current = currentStock(book);
+                    storedTotals.add(current.getGenre(), current.getAuthor(), 1, current.getQuantity(), current.getMax());
+                });
+                return compare(storedTotals);
+            } finally {
+                synchronized (this) {
+                    eventsDuringPass = null;
+                    liveStockReadAt = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the stock the updater holds for a scanned book, noting how many events the pass
+     * had seen by then, as the stock read already counts the stock changes among them.
+     */
+    private synchronized Book currentStock(Book stored) {
+        Book current = stockUpdater.current(stored);
+        if (current != stored) {
+            liveStockReadAt.put(stored.getId(), eventsDuringPass.size());
+        }
+        return current;
+    }
+
+    private synchronized boolean compare(StockTotals storedTotals) {
+        for (int i = 0; i < eventsDuringPass.size(); i++) {
+            BookChangedEvent event = eventsDuringPass.get(i);
+            Integer readAt = liveStockReadAt.get(event.getBook().getId());
+            if (event.getType() != BookChangeType.STOCK_CHANGED || readAt == null || i >= readAt) {
+                apply(storedTotals, event);
+            }
+        }
+        StockTotals drift = storedTotals.minus(totals);
+        if (drift.isEmpty()) {
+            unconfirmedDrift = null;
+            matched.increment();
+        } else if (unconfirmedDrift == null || !unconfirmedDrift.sameAs(drift)) {
+            unconfirmedDrift = drift;
+            unconfirmed.increment();
+        } else {
+            unconfirmedDrift = null;
+            log.warn("Stock analytics drifted from the store and were corrected: {} before, {} after", totals.total(), storedTotals.total());
+            totals.addAll(drift, 1);
+            corrected.increment();
+        }
+        return true;
+    }
+
+    private static void apply(StockTotals totals, BookChangedEvent event) {
+        BookDTO book = event.getBook();
+        switch (event.getType()) {
+            case CREATED:
+                totals.add(book.getGenre(), book.getAuthor(), 1, book.getQuantity(), book.getMax());
+                break;
+            case DELETED:
+                totals.add(book.getGenre(), book.getAuthor(), -1, -book.getQuantity(), -book.getMax());
+                break;
+            default:
+                totals.add(book.getGenre(), book.getAuthor(), 0, event.getDelta(), 0);
+        }
+    }
+
+    private void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Stock analytics reconciliation failed, the next pass retries", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.dio.bookstore.analytics;
+
+import com.dio.bookstore.dto.StockTotalsDTO;
+import com.dio.bookstore.enums.BookType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Titles, units on hand and summed max per genre, in arrays indexed by genre ordinal, and per
+ * author, in a map sorted by name. Not thread-safe; {@link StockAnalytics} guards it.
+ */
+class StockTotals {
+
+    private static final BookType[] GENRES = BookType.values();
+    private static final int TITLES = 0;
+    private static final int QUANTITY = 1;
+    private static final int MAX = 2;
+
+    private final long[] genreTitles = new long[GENRES.length];
+    private final long[] genreQuantity = new long[GENRES.length];
+    private final long[] genreMax = new long[GENRES.length];
+    private final TreeMap<String, long[]> authors = new TreeMap<>();
+
+    void add(BookType genre, String author, long titles, long quantity, long max) {
+        int ordinal = genre.ordinal();
+        genreTitles[ordinal] += titles;
+        genreQuantity[ordinal] += quantity;
+        genreMax[ordinal] += max;
+        long[] authorTotals = authors.computeIfAbsent(author, key -> new long[3]);
+        authorTotals[TITLES] += titles;
+        authorTotals[QUANTITY] += quantity;
+        authorTotals[MAX] += max;
+        if (authorTotals[TITLES] == 0 && authorTotals[QUANTITY] == 0 && authorTotals[MAX] == 0) {
+            authors.remove(author);
+        }
+    }
+
+    /**
+     * Adds every genre and author total of {@code other}, times {@code sign}.
+     */
+    void addAll(StockTotals other, int sign) {
+        for (int ordinal = 0; ordinal < GENRES.length; ordinal++) {
+            genreTitles[ordinal] += sign * other.genreTitles[ordinal];
+            genreQuantity[ordinal] += sign * other.genreQuantity[ordinal];
+            genreMax[ordinal] += sign * other.genreMax[ordinal];
+        }
+        other.authors.forEach((author, totals) -> {
+            long[] authorTotals = authors.computeIfAbsent(author, key -> new long[3]);
+            authorTotals[TITLES] += sign * totals[TITLES];
+            authorTotals[QUANTITY] += sign * totals[QUANTITY];
+            authorTotals[MAX] += sign * totals[MAX];
+            if (authorTotals[TITLES] == 0 && authorTotals[QUANTITY] == 0 && authorTotals[MAX] == 0) {
+                authors.remove(author);
+            }
+        });
+    }
+
+    /**
+     * What has to be added to {@code other} to get these totals.
+     */
+    StockTotals minus(StockTotals other) {
+        StockTotals difference = new StockTotals();
+        difference.addAll(this, 1);
+        difference.addAll(other, -1);
+        return difference;
+    }
+
+    boolean isEmpty() {
+        return authors.isEmpty()
+                && Arrays.stream(genreTitles).allMatch(value -> value == 0)
+                && Arrays.stream(genreQuantity).allMatch(value -> value == 0)
+                && Arrays.stream(genreMax).allMatch(value -> value == 0);
+    }
+
+    StockTotalsDTO total() {
+        return toDTO("total", sum(genreTitles), sum(genreQuantity), sum(genreMax));
+    }
+
+    List<StockTotalsDTO> genres() {
+        List<StockTotalsDTO> genres = new ArrayList<>(GENRES.length);
+        for (BookType genre : GENRES) {
+            int ordinal = genre.ordinal();
+            genres.add(toDTO(genre.name(), genreTitles[ordinal], genreQuantity[ordinal], genreMax[ordinal]));
+        }
+        return genres;
+    }
+
+    List<StockTotalsDTO> authors(String after, int limit) {
+        List<StockTotalsDTO> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Map.Entry<String, long[]> author : authors.tailMap(after, false).entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            long[] totals = author.getValue();
+            page.add(toDTO(author.getKey(), totals[TITLES], totals[QUANTITY], totals[MAX]));
+        }
+        return page;
+    }
+
+    boolean sameAs(StockTotals other) {
+        if (!Arrays.equals(genreTitles, other.genreTitles)
+                || !Arrays.equals(genreQuantity, other.genreQuantity)
+                || !Arrays.equals(genreMax, other.genreMax)
+                || authors.size() != other.authors.size()) {
+            return false;
+        }
+        return authors.entrySet()
+                .stream()
+                .allMatch(author -> Arrays.equals(author.getValue(), other.authors.get(author.getKey())));
+    }
+
+    private static StockTotalsDTO toDTO(String name, long titles, long quantity, long max) {
+        return new StockTotalsDTO(name, titles, quantity, max, max == 0 ? 0.0 : (double) quantity / max);
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0L;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
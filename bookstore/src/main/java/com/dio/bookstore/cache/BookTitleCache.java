@@ -0,0 +1,106 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.mapper.BookMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Books by title, read through from the store. Entries are copies that callers never see, so
+ * a cached book can only change by being replaced.
+ *
+ * <p>Any change to a book evicts its title rather than caching the book carried by the event:
+ * events for concurrent changes to one book can arrive in either order, and an older book put
+ * last would stay cached with a wrong quantity. Titles changed before the warm-up preload are
+ * left out of it, since the preloaded copy may be older than the change.
+ */
+@Component
+public class BookTitleCache {
+
+    private static final String CACHE_NAME = "bookTitles";
+
+    private final long maximumSize;
+    private final Cache<String, BookDTO> cache;
+    private final BookMapper bookMapper = BookMapper.INSTANCE;
+    private final Set<String> changedBeforePreload = new HashSet<>();
+
+    private volatile boolean preloaded;
+
+    public BookTitleCache(@Value("${bookstore.cache.title.maximum-size:10000}") long maximumSize,
+                          MeterRegistry meterRegistry) {
+        this.maximumSize = maximumSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public BookDTO get(String title, Function<String, BookDTO> loader) {
+        BookDTO book = cache.get(title, key -> {
+            BookDTO loaded = loader.apply(key);
+            return loaded == null ? null : bookMapper.copy(loaded);
+        });
+        return book == null ? null : bookMapper.copy(book);
+    }
+
+    /**
+     * Caches {@code books} in the given order until the cache is full. Titles already cached
+     * were loaded since and are kept; titles changed since are left to be read through.
+     *
+     * @return how many books were added
+     */
+    public synchronized int preload(Collection<BookDTO> books) {
+        long room = maximumSize - cache.estimatedSize();
+        int added = 0;
+        for (BookDTO book : books) {
+            if (added >= room) {
+                break;
+            }
+            if (!changedBeforePreload.contains(book.getTitle())
+                    && cache.asMap().putIfAbsent(book.getTitle(), bookMapper.copy(book)) == null) {
+                added++;
+            }
+        }
+        changedBeforePreload.clear();
+        preloaded = true;
+        return added;
+    }
+
+    /**
+     * The cached titles, those the eviction policy would keep longest first.
+     */
+    public List<String> hottestTitles() {
+        return cache.policy().eviction()
+                .map(eviction -> new ArrayList<>(eviction.hottest(Math.toIntExact(maximumSize)).keySet()))
+                .orElseGet(() -> new ArrayList<>(cache.asMap().keySet()));
+    }
+
+    @Order(CatalogVersion.LISTENER_ORDER - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        String title = event.getBook().getTitle();
+        if (!preloaded) {
+            synchronized (this) {
+                if (!preloaded) {
+                    changedBeforePreload.add(title);
+                }
+            }
+        }
+        cache.invalidate(title);
+    }
+}
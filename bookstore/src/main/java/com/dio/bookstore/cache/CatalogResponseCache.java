@@ -0,0 +1,295 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the full catalog listing encoded as JSON, plus a gzip copy, for the current
+ * {@link CatalogVersion}. A read only copies the bytes to the response; the first read
+ * after a change re-encodes the catalog while concurrent readers wait for it.
+ *
+ * <p>With {@code storage=mapped} both copies live in memory-mapped files outside the heap,
+ * for catalogs too large to keep as byte arrays. Readers hold the snapshot they copy from
+ * until they close it, and a replaced snapshot is unmapped once its last reader is done,
+ * instead of keeping its mapping until the buffers happen to be collected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.cache.catalog.enabled", havingValue = "true")
+public class CatalogResponseCache {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP_VARIANT = "-gz";
+    private static final Unmapper UNMAPPER = Unmapper.lookUp();
+
+    private final BookService bookService;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+    private final boolean mapped;
+    private final Path directory;
+    private final Counter rebuilds;
+
+    private volatile Snapshot snapshot;
+
+    public CatalogResponseCache(BookService bookService,
+                                CatalogVersion catalogVersion,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${bookstore.cache.catalog.storage:heap}") String storage,
+                                @Value("${bookstore.cache.catalog.directory:${java.io.tmpdir}}") String directory) {
+        this.bookService = bookService;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.bookWriter = objectMapper.writerFor(BookDTO.class);
+        this.mapped = "mapped".equals(storage);
+        this.directory = Paths.get(directory);
+        this.rebuilds = meterRegistry.counter("bookstore.cache.catalog.rebuilds");
+        meterRegistry.gauge("bookstore.cache.catalog.bytes", this, cache -> {
+            Snapshot current = cache.snapshot;
+            return current == null ? 0 : current.json.capacity() + current.gzip.capacity();
+        });
+    }
+
+    /**
+     * Returns the snapshot for the current catalog version, encoding it first when needed.
+     * The caller must close it once the bytes are written.
+     */
+    public Snapshot acquire() {
+        while (true) {
+            Snapshot current = current();
+            if (current.retain()) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Encodes the catalog now if it changed since the last encoding.
+     */
+    public void refresh() {
+        current();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (snapshot != null) {
+            snapshot.close();
+            snapshot = null;
+        }
+    }
+
+    private Snapshot current() {
+        long version = catalogVersion.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.version != version) {
+                Snapshot replaced = current;
+                current = build(version);
+                snapshot = current;
+                rebuilds.increment();
+                if (replaced != null) {
+                    replaced.close();
+                }
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build(long version) {
+        ByteBuffer json = store("json", this::writeCatalog);
+        ByteBuffer gzip;
+        try {
+            gzip = store("json.gz", out -> {
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, BUFFER_SIZE)) {
+                    write(json, gzipOut);
+                }
+            });
+        } catch (RuntimeException e) {
+            UNMAPPER.unmap(json);
+            throw e;
+        }
+        return new Snapshot(version, catalogVersion.etag(version), catalogVersion.etag(version, GZIP_VARIANT), json, gzip);
+    }
+
+    private void writeCatalog(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            bookService.streamAll(bookDTO -> {
+                try {
+                    bookWriter.writeValue(generator, bookDTO);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    private ByteBuffer store(String suffix, Encoder encoder) {
+        try {
+            if (!mapped) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                encoder.encode(out);
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "catalog-", "." + suffix);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+                encoder.encode(out);
+                out.flush();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(ByteBuffer buffer, OutputStream out) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+        } else {
+            Channels.newChannel(out).write(buffer.duplicate());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+
+        void encode(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Releases a mapped buffer right away through {@code sun.misc.Unsafe.invokeCleaner},
+     * looked up reflectively since it is not part of the public API. Without it the mapping
+     * is released when the buffer is collected.
+     */
+    private static final class Unmapper {
+
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Unmapper(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        static Unmapper lookUp() {
+            try {
+                Class<?> unsafeType = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeType.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Unmapper(theUnsafe.get(null), unsafeType.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.info("Mapped catalog buffers are released by the garbage collector: {}", e.toString());
+                return new Unmapper(null, null);
+            }
+        }
+
+        void unmap(ByteBuffer buffer) {
+            if (invokeCleaner == null || !buffer.isDirect()) {
+                return;
+            }
+            try {
+                invokeCleaner.invoke(unsafe, buffer);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Could not unmap a catalog buffer, it is released when collected", e);
+            }
+        }
+    }
+
+    /**
+     * One encoded catalog. The buffers are never modified after the snapshot is published.
+     * The cache holds one reference and every reader another; the buffers are unmapped when
+     * the last one is closed.
+     */
+    public static final class Snapshot implements AutoCloseable {
+
+        private final long version;
+        private final String etag;
+        private final String gzipEtag;
+        private final ByteBuffer json;
+        private final ByteBuffer gzip;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Snapshot(long version, String etag, String gzipEtag, ByteBuffer json, ByteBuffer gzip) {
+            this.version = version;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getEtag(boolean gzipped) {
+            return gzipped ? gzipEtag : etag;
+        }
+
+        public void writeTo(OutputStream out, boolean gzipped) throws IOException {
+            write(gzipped ? gzip : json, out);
+        }
+
+        public int length(boolean gzipped) {
+            return (gzipped ? gzip : json).remaining();
+        }
+
+        @Override
+        public void close() {
+            if (references.decrementAndGet() == 0) {
+                UNMAPPER.unmap(json);
+                UNMAPPER.unmap(gzip);
+            }
+        }
+
+        private boolean retain() {
+            for (int count = references.get(); count > 0; count = references.get()) {
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.event.BookChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the catalog, bumped after every committed book change. Together
+ * with an id drawn at startup it forms a strong ETag, so a tag handed out before a
+ * restart or by another instance never matches.
+ *
+ * <p>Representations of the same version that differ in bytes, such as a gzipped or Smile
+ * body, get a suffix on the tag, so a cache never pairs one with the other's tag.
+ *
+ * <p>The bump runs after the other change listeners, and readers take the tag before
+ * loading, so a tag is never newer than the data sent with it.
+ */
+@Component
+public class CatalogVersion {
+
+    public static final int LISTENER_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+
+    public long get() {
+        return version.get();
+    }
+
+    public String etag() {
+        return etag(version.get());
+    }
+
+    public String etag(long version) {
+        return etag(version, "");
+    }
+
+    public String etag(String variant) {
+        return etag(version.get(), variant);
+    }
+
+    public String etag(long version, String variant) {
+        return "\"" + bootId + "-" + version + variant + "\"";
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    @Order(LISTENER_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bump();
+    }
+}
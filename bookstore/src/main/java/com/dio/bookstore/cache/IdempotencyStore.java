@@ -0,0 +1,126 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.exceptions.IdempotencyKeyInProgressException;
+import com.dio.bookstore.exceptions.IdempotencyKeyReusedException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Remembers the response of recent stock mutations by their {@code Idempotency-Key}, so a
+ * retried or hedged request gets the first response back instead of applying the change
+ * again. A retry that arrives while the first attempt is still running waits for it, up to
+ * the wait timeout. A failed attempt is forgotten, so the client can retry it with the same key.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String CACHE_NAME = "idempotencyKeys";
+
+    private final Cache<String, Entry> cache;
+    private final Duration waitTimeout;
+    private final Counter replays;
+
+    public IdempotencyStore(@Value("${bookstore.idempotency.maximum-size:100000}") long maximumSize,
+                            @Value("${bookstore.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${bookstore.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.waitTimeout = waitTimeout;
+        this.replays = meterRegistry.counter("bookstore.idempotency.replays");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Runs {@code mutation} once per key. {@code fingerprint} identifies the request the key
+     * was first used with; reusing the key for another request is rejected.
+     */
+    public <T> T execute(String key, String fingerprint, Mutation<T> mutation) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        if (key == null) {
+            return mutation.apply();
+        }
+        Entry entry = new Entry(fingerprint);
+        Entry existing = cache.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            replays.increment();
+            return await(key, existing);
+        }
+        try {
+            T response = mutation.apply();
+            entry.response.complete(response);
+            return response;
+        } catch (Throwable e) {
+            cache.asMap().remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(String key, Entry entry) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        try {
+            return (T) entry.response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the first attempt", e);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException(key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BookNotFoundException) {
+                throw (BookNotFoundException) cause;
+            }
+            if (cause instanceof BookStockExceededException) {
+                throw (BookStockExceededException) cause;
+            }
+            if (cause instanceof BookStockConflictException) {
+                throw (BookStockConflictException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Mutation<T> {
+
+        T apply() throws BookNotFoundException, BookStockExceededException, BookStockConflictException;
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
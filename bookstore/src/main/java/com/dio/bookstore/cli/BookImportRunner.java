@@ -0,0 +1,57 @@
+package com.dio.bookstore.cli;
+
+import com.dio.bookstore.dto.BookImportProgressDTO;
+import com.dio.bookstore.enums.ImportFormat;
+import com.dio.bookstore.service.BookImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Imports a catalog file at startup and exits, printing the same progress lines as
+ * {@code POST /api/books/import}. Run with
+ * {@code --bookstore.import.file=catalog.csv --spring.main.web-application-type=none}.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.import.file")
+public class BookImportRunner implements ApplicationRunner {
+
+    private final BookImportService bookImportService;
+    private final ObjectWriter progressWriter;
+    private final ConfigurableApplicationContext applicationContext;
+    private final Path file;
+    private final PrintStream out = System.out;
+
+    public BookImportRunner(BookImportService bookImportService,
+                            ObjectMapper objectMapper,
+                            ConfigurableApplicationContext applicationContext,
+                            @Value("${bookstore.import.file}") String file) {
+        this.bookImportService = bookImportService;
+        this.progressWriter = objectMapper.writerFor(BookImportProgressDTO.class);
+        this.applicationContext = applicationContext;
+        this.file = Paths.get(file);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ImportFormat format = file.getFileName().toString().toLowerCase().endsWith(".csv") ? ImportFormat.CSV : ImportFormat.NDJSON;
+        BookImportProgressDTO result;
+        try (InputStream input = Files.newInputStream(file)) {
+            result = bookImportService.importBooks(input, format, progress -> out.println(progressWriter.writeValueAsString(progress)));
+        }
+        int exitCode = result.getFailed() > 0 ? 1 : 0;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
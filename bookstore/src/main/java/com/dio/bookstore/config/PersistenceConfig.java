@@ -0,0 +1,16 @@
+package com.dio.bookstore.config;
+
+import com.dio.bookstore.entity.BookIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer bookIdAllocationCustomizer(@Value("${bookstore.id.allocation-size:50}") int allocationSize) {
+        return properties -> properties.put(BookIdGenerator.ALLOCATION_SIZE_SETTING, allocationSize);
+    }
+}
@@ -0,0 +1,71 @@
+package com.dio.bookstore.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every Tomcat request on its own virtual thread instead of the fixed request thread
+ * pool. A request blocked on JDBC parks its virtual thread and frees the carrier, so the
+ * requests in flight are bounded by Tomcat's connection limit rather than by
+ * {@code server.tomcat.threads.max}.
+ *
+ * <p>Virtual threads need Java 21. The code is still compiled for Java 11, so the executor is
+ * looked up reflectively and the application refuses to start in this mode on an older
+ * runtime.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bookstore.web.execution-mode", havingValue = "virtual")
+public class VirtualThreadExecutionConfig {
+
+    private static final String THREAD_NAME_PREFIX = "tomcat-virtual-";
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, virtualThreadFactory());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("bookstore.web.execution-mode=virtual needs Java 21 or later, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadRequestExecutor,
+                                                                                    MeterRegistry meterRegistry) {
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("bookstore.web.requests.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        return protocolHandler -> protocolHandler.setExecutor(task -> {
+            inFlight.incrementAndGet();
+            try {
+                virtualThreadRequestExecutor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        });
+    }
+
+    private static ThreadFactory virtualThreadFactory() throws ReflectiveOperationException {
+        Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 0L);
+        return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    }
+}
@@ -0,0 +1,53 @@
+package com.dio.bookstore.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Adds Smile ({@code application/x-jackson-smile}) next to JSON for clients that ask for it
+ * in {@code Accept} or send it as {@code Content-Type}. Smile writes integers as zigzag
+ * varints, sends each repeated property name and short string once per payload and, here,
+ * writes enums such as {@link com.dio.bookstore.enums.BookType} by ordinal.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public WireFormatConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    /**
+     * Spring MVC registers a default Smile converter once the format is on the classpath; it
+     * is replaced in place so the ordinal enum encoding applies.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter(smileMapper(objectMapperBuilder));
+        int index = converters.indexOf(converters.stream()
+                .filter(MappingJackson2SmileHttpMessageConverter.class::isInstance)
+                .findFirst()
+                .orElse(null));
+        converters.removeIf(MappingJackson2SmileHttpMessageConverter.class::isInstance);
+        converters.add(index < 0 ? converters.size() : index, smileConverter);
+    }
+
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        return objectMapperBuilder
+                .factory(smileFactory)
+                .featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+                .build();
+    }
+}
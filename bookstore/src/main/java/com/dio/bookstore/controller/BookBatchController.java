@@ -0,0 +1,30 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.BatchGetRequestDTO;
+import com.dio.bookstore.dto.BatchGetResultDTO;
+import com.dio.bookstore.service.BookService;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * Custom methods on the book collection. They are mapped as {@code /api/books:<method>}, which is
+ * not a sub-path of {@link BookController}'s mapping.
+ */
+@RestController
+@RequestMapping("/api")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BookBatchController implements BookBatchControllerDocs {
+
+    private final BookService bookService;
+
+    @PostMapping("/books:batchGet")
+    public BatchGetResultDTO batchGet(@RequestBody @Valid BatchGetRequestDTO batchGetRequestDTO) {
+        return bookService.batchGet(batchGetRequestDTO.getIds(), batchGetRequestDTO.getTitles());
+    }
+}
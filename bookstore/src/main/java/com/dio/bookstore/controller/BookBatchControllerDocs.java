@@ -0,0 +1,19 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.BatchGetRequestDTO;
+import com.dio.bookstore.dto.BatchGetResultDTO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+@Api("Resolves many books in one call")
+public interface BookBatchControllerDocs {
+
+    @ApiOperation(value = "Finds books by lists of ids and titles")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One result per requested id, then per requested title, in request order; missing books have found=false"),
+            @ApiResponse(code = 400, message = "More than 1000 ids or titles, or a null entry")
+    })
+    BatchGetResultDTO batchGet(BatchGetRequestDTO batchGetRequestDTO);
+}
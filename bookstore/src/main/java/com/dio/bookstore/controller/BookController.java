@@ -1,25 +1,55 @@
 package com.dio.bookstore.controller;
 
+import com.dio.bookstore.cache.CatalogVersion;
+import com.dio.bookstore.cache.IdempotencyStore;
+import com.dio.bookstore.dto.BatchStockAdjustmentDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentResultDTO;
 import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.BookImportProgressDTO;
 import com.dio.bookstore.dto.QuantityDTO;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.enums.ImportFormat;
 import com.dio.bookstore.exceptions.BookAlreadyRegisteredException;
 import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
 import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.service.BookImportService;
 import com.dio.bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/books")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BookController implements BookControllerDocs {
 
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final String SMILE_VARIANT = "-smile";
+
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final IdempotencyStore idempotencyStore;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -27,14 +57,71 @@ public class BookController implements BookControllerDocs {
         return bookService.createBook(bookDTO);
     }
 
+    @PostMapping(value = "/import",
+            consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                             HttpServletRequest request) throws IOException {
+        ImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? ImportFormat.NDJSON : ImportFormat.CSV;
+        InputStream body = request.getInputStream();
+        ObjectWriter progressWriter = objectMapper.writerFor(BookImportProgressDTO.class);
+        return outputStream -> bookImportService.importBooks(body, format, progress -> {
+            outputStream.write(progressWriter.writeValueAsBytes(progress));
+            outputStream.write('\n');
+            outputStream.flush();
+        });
+    }
+
+    @GetMapping("/search")
+    public List<BookDTO> search(@RequestParam("q") String query,
+                                @RequestParam(defaultValue = "10") int limit) {
+        return bookService.search(query, limit);
+    }
+
     @GetMapping("/{title}")
-    public BookDTO findByTitle(@PathVariable String title) throws BookNotFoundException {
+    public BookDTO findByTitle(@PathVariable String title, WebRequest webRequest) throws BookNotFoundException {
+        if (webRequest.checkNotModified(etag(webRequest))) {
+            return null;
+        }
         return bookService.findByTitle(title);
     }
 
     @GetMapping
-    public List<BookDTO> listBooks() {
-        return bookService.listAll();
+    public List<BookDTO> listBooks(@RequestParam(required = false) String author,
+                                   @RequestParam(required = false) BookType genre,
+                                   @RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Integer limit,
+                                   WebRequest webRequest) {
+        if (webRequest.checkNotModified(etag(webRequest))) {
+            return null;
+        }
+        if (author == null && genre == null && after == null && limit == null) {
+            return bookService.listAll();
+        }
+        return bookService.listPage(author, genre, after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamBooks(@RequestParam(required = false) String author,
+                                             @RequestParam(required = false) BookType genre,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(required = false) Integer limit) {
+        ObjectWriter bookWriter = objectMapper.writerFor(BookDTO.class);
+        return outputStream -> {
+            Consumer<BookDTO> writer = bookDTO -> {
+                try {
+                    outputStream.write(bookWriter.writeValueAsBytes(bookDTO));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (author == null && genre == null && after == null && limit == null) {
+                bookService.streamAll(writer);
+            } else {
+                bookService.streamPage(author, genre, after, limit, writer);
+            }
+        };
     }
 
     @DeleteMapping("/{id}")
@@ -44,12 +131,52 @@ public class BookController implements BookControllerDocs {
     }
 
     @PatchMapping("/{id}/increment")
-    public BookDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws BookNotFoundException, BookStockExceededException {
-        return bookService.increment(id, quantityDTO.getQuantity());
+    public BookDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                             @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        return idempotencyStore.execute(idempotencyKey, "increment:" + id + ":" + quantityDTO.getQuantity(),
+                () -> bookService.increment(id, quantityDTO.getQuantity()));
     }
 
     @PatchMapping("/{id}/decrement")
-    public BookDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws BookNotFoundException, BookStockExceededException {
-        return bookService.decrement(id, quantityDTO.getQuantity());
+    public BookDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO,
+                             @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        return idempotencyStore.execute(idempotencyKey, "decrement:" + id + ":" + quantityDTO.getQuantity(),
+                () -> bookService.decrement(id, quantityDTO.getQuantity()));
+    }
+
+    @PatchMapping("/stock:batch")
+    public BatchStockAdjustmentResultDTO adjustStock(@RequestBody @Valid BatchStockAdjustmentDTO batchStockAdjustmentDTO) {
+        return bookService.adjustStock(batchStockAdjustmentDTO);
+    }
+
+    /**
+     * Tags the Smile body apart from the JSON one. The format is picked the way content
+     * negotiation picks it: the most specific acceptable type wins, and JSON wins ties and
+     * wildcards since its converter comes first.
+     */
+    private String etag(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return catalogVersion.etag();
+        }
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return catalogVersion.etag();
+        }
+        MediaType.sortBySpecificityAndQuality(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            if (acceptedType.getQualityValue() == 0) {
+                continue;
+            }
+            if (acceptedType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return catalogVersion.etag();
+            }
+            if (acceptedType.isCompatibleWith(SMILE)) {
+                return catalogVersion.etag(SMILE_VARIANT);
+            }
+        }
+        return catalogVersion.etag();
     }
 }
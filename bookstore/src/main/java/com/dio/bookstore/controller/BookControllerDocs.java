@@ -1,14 +1,22 @@
 package com.dio.bookstore.controller;
 
+import com.dio.bookstore.dto.BatchStockAdjustmentDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentResultDTO;
 import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookType;
 import com.dio.bookstore.exceptions.BookAlreadyRegisteredException;
 import com.dio.bookstore.exceptions.BookNotFoundException;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.List;
 
 @Api("Manages book stock")
@@ -22,18 +30,40 @@ public interface BookControllerDocs {
     })
     BookDTO createBook(BookDTO bookDTO) throws BookAlreadyRegisteredException;
 
-    @ApiOperation(value = "Returns book found by a given title")
+    @ApiOperation(value = "Returns book found by a given title",
+            notes = "The titles search, low-stock and analytics are taken by other endpoints; use POST /api/books:batchGet for them.")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Success book found in the system"),
+            @ApiResponse(code = 304, message = "Catalog unchanged since the ETag given in If-None-Match"),
             @ApiResponse(code = 404, message = "Book with given title not found.")
     })
-    BookDTO findByTitle(@PathVariable String title) throws BookNotFoundException;
+    BookDTO findByTitle(@PathVariable String title, WebRequest webRequest) throws BookNotFoundException;
 
-    @ApiOperation(value = "Returns a list of all books registered in the system")
+    @ApiOperation(value = "Returns books whose title or author tokens match the given query, best matches first")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ranked list of matching books"),
+    })
+    List<BookDTO> search(String query, int limit);
+
+    @ApiOperation(value = "Returns a list of all books registered in the system, or a keyset page of it when author, genre, after or limit is given")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "List of all books registered in the system"),
+            @ApiResponse(code = 304, message = "Catalog unchanged since the ETag given in If-None-Match"),
+    })
+    List<BookDTO> listBooks(String author, BookType genre, Long after, Integer limit, WebRequest webRequest);
+
+    @ApiOperation(value = "Imports books from a CSV or newline delimited JSON file, streaming progress as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One progress line per imported chunk, with the rows rejected in it, and a final line with done set"),
+            @ApiResponse(code = 415, message = "Body is neither text/csv nor application/x-ndjson")
     })
-    List<BookDTO> listBooks();
+    StreamingResponseBody importBooks(MediaType contentType, HttpServletRequest request) throws IOException;
+
+    @ApiOperation(value = "Streams all books registered in the system as newline delimited JSON, or only those matching author, genre, after and limit when given")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stream of the matching books, ordered by id"),
+    })
+    StreamingResponseBody streamBooks(String author, BookType genre, Long after, Integer limit);
 
     @ApiOperation(value = "Delete a book found by a given valid Id")
     @ApiResponses(value = {
@@ -41,4 +71,11 @@ public interface BookControllerDocs {
             @ApiResponse(code = 404, message = "Book with given id not found.")
     })
     void deleteById(@PathVariable Long id) throws BookNotFoundException;
+
+    @ApiOperation(value = "Applies a batch of stock deltas in a single transaction")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Result of each stock adjustment in request order"),
+            @ApiResponse(code = 400, message = "Missing required fields or empty batch.")
+    })
+    BatchStockAdjustmentResultDTO adjustStock(BatchStockAdjustmentDTO batchStockAdjustmentDTO);
 }
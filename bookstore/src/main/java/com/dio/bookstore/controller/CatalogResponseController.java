@@ -0,0 +1,86 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.cache.CatalogResponseCache;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves the unfiltered catalog listing from {@link CatalogResponseCache}. It takes over
+ * {@code GET /api/books} only when no filter or page parameter is given and JSON is
+ * acceptable; every other listing still goes through {@link BookController}.
+ */
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnProperty(name = "bookstore.cache.catalog.enabled", havingValue = "true")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CatalogResponseController implements CatalogResponseControllerDocs {
+
+    private static final String GZIP = "gzip";
+
+    private final CatalogResponseCache catalogResponseCache;
+
+    @GetMapping(params = {"!author", "!genre", "!after", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void listCatalog(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean gzipped = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        try (CatalogResponseCache.Snapshot snapshot = catalogResponseCache.acquire()) {
+            if (new ServletWebRequest(request, response).checkNotModified(snapshot.getEtag(gzipped))) {
+                return;
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            if (gzipped) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            }
+            response.setContentLength(snapshot.length(gzipped));
+            snapshot.writeTo(response.getOutputStream(), gzipped);
+        }
+    }
+
+    /**
+     * Whether {@code Accept-Encoding} allows gzip, either by name or through {@code *}, with a
+     * quality above zero. An explicit {@code gzip;q=0} wins over {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean accepted = quality(parts) > 0;
+            if (name.equalsIgnoreCase(GZIP)) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,21 @@
+package com.dio.bookstore.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Api("Serves the pre-encoded catalog listing")
+public interface CatalogResponseControllerDocs {
+
+    @ApiOperation(value = "Returns all books registered in the system from the pre-encoded catalog, gzipped when the client accepts it")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "List of all books registered in the system"),
+            @ApiResponse(code = 304, message = "Catalog unchanged since the ETag given in If-None-Match")
+    })
+    void listCatalog(HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
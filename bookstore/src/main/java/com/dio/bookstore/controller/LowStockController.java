@@ -0,0 +1,26 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.replenishment.LowStockTracker;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class LowStockController implements LowStockControllerDocs {
+
+    private final LowStockTracker lowStockTracker;
+
+    @GetMapping("/low-stock")
+    public List<BookDTO> listLowStock(@RequestParam(defaultValue = "0") long after,
+                                      @RequestParam(defaultValue = "100") int limit) {
+        return lowStockTracker.list(after, limit);
+    }
+}
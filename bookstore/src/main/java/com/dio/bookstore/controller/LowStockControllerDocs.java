@@ -0,0 +1,19 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.BookDTO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import java.util.List;
+
+@Api("Lists books that need replenishment")
+public interface LowStockControllerDocs {
+
+    @ApiOperation(value = "Lists the books whose quantity is below the low-stock threshold of their max, in id order")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Low-stock books with an id above the given one")
+    })
+    List<BookDTO> listLowStock(long after, int limit);
+}
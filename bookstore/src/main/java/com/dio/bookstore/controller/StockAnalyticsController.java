@@ -0,0 +1,32 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.analytics.StockAnalytics;
+import com.dio.bookstore.dto.StockAnalyticsDTO;
+import com.dio.bookstore.dto.StockTotalsDTO;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books/analytics")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockAnalyticsController implements StockAnalyticsControllerDocs {
+
+    private final StockAnalytics stockAnalytics;
+
+    @GetMapping
+    public StockAnalyticsDTO summary() {
+        return stockAnalytics.summary();
+    }
+
+    @GetMapping("/authors")
+    public List<StockTotalsDTO> authors(@RequestParam(required = false) String after,
+                                        @RequestParam(defaultValue = "100") int limit) {
+        return stockAnalytics.authors(after, limit);
+    }
+}
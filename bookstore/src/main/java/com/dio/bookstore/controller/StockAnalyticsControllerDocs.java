@@ -0,0 +1,26 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.StockAnalyticsDTO;
+import com.dio.bookstore.dto.StockTotalsDTO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import java.util.List;
+
+@Api("Reads stock totals for merchandising")
+public interface StockAnalyticsControllerDocs {
+
+    @ApiOperation(value = "Returns titles, units on hand, summed max and fill ratio for the catalog and per genre")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Catalog totals and one entry per genre")
+    })
+    StockAnalyticsDTO summary();
+
+    @ApiOperation(value = "Lists the same totals per author, sorted by author name")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Authors sorted after the given name")
+    })
+    List<StockTotalsDTO> authors(String after, int limit);
+}
@@ -0,0 +1,36 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.StockEventPageDTO;
+import com.dio.bookstore.event.StockEventLog;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/books/stock/events")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockEventController implements StockEventControllerDocs {
+
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final StockEventLog stockEventLog;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId,
+                                @RequestParam(required = false) Long from) {
+        return stockEventLog.subscribe(lastEventId != null ? Long.valueOf(lastEventId + 1) : from);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<StockEventPageDTO> poll(@RequestParam(defaultValue = "0") long from,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        return stockEventLog.poll(from, limit);
+    }
+}
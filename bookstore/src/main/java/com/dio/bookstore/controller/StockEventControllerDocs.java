@@ -0,0 +1,25 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.StockEventPageDTO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Api("Streams book stock changes")
+public interface StockEventControllerDocs {
+
+    @ApiOperation(value = "Subscribes to stock changes as server-sent events, resuming after Last-Event-ID or from a given offset")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Event stream; each event id is its offset and a reset event marks offsets no longer retained or not handed out yet")
+    })
+    SseEmitter subscribe(Long lastEventId, Long from);
+
+    @ApiOperation(value = "Long-polls stock changes starting at a given offset")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Events from the offset on, or an empty page when none arrived before the poll timeout")
+    })
+    DeferredResult<StockEventPageDTO> poll(long from, int limit);
+}
@@ -0,0 +1,45 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.cache.IdempotencyStore;
+import com.dio.bookstore.dto.StockHoldDTO;
+import com.dio.bookstore.dto.StockHoldRequestDTO;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.exceptions.StockHoldNotFoundException;
+import com.dio.bookstore.service.StockReservationService;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/books")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockHoldController implements StockHoldControllerDocs {
+
+    private final StockReservationService stockReservationService;
+    private final IdempotencyStore idempotencyStore;
+
+    @PostMapping("/{id}/holds")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StockHoldDTO hold(@PathVariable Long id, @RequestBody @Valid StockHoldRequestDTO stockHoldRequestDTO,
+                             @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        Long ttlSeconds = stockHoldRequestDTO.getTtlSeconds();
+        return idempotencyStore.execute(idempotencyKey, "hold:" + id + ":" + stockHoldRequestDTO.getQuantity() + ":" + ttlSeconds,
+                () -> stockReservationService.hold(id, stockHoldRequestDTO.getQuantity(), ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds)));
+    }
+
+    @PostMapping("/holds/{holdId}/commit")
+    public StockHoldDTO commit(@PathVariable String holdId) throws StockHoldNotFoundException {
+        return stockReservationService.commit(holdId);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public StockHoldDTO release(@PathVariable String holdId) throws StockHoldNotFoundException, BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        return stockReservationService.release(holdId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.StockHoldDTO;
+import com.dio.bookstore.dto.StockHoldRequestDTO;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.exceptions.StockHoldNotFoundException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+@Api("Manages time-limited stock holds for checkout")
+public interface StockHoldControllerDocs {
+
+    @ApiOperation(value = "Holds stock of a book until the hold is committed, released or its ttl runs out")
+    @ApiResponses(value = {
+            @ApiResponse(code = 201, message = "Stock held; it is no longer available to other holds or decrements"),
+            @ApiResponse(code = 400, message = "Not enough stock available for the hold"),
+            @ApiResponse(code = 404, message = "Book with given id not found"),
+            @ApiResponse(code = 422, message = "Idempotency-Key already used for a different request")
+    })
+    StockHoldDTO hold(Long id, StockHoldRequestDTO stockHoldRequestDTO, String idempotencyKey) throws BookNotFoundException, BookStockExceededException, BookStockConflictException;
+
+    @ApiOperation(value = "Commits a hold, keeping its stock taken")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Hold committed"),
+            @ApiResponse(code = 404, message = "Hold already committed, released or expired")
+    })
+    StockHoldDTO commit(String holdId) throws StockHoldNotFoundException;
+
+    @ApiOperation(value = "Releases a hold, returning its stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Hold released"),
+            @ApiResponse(code = 404, message = "Hold already committed, released or expired")
+    })
+    StockHoldDTO release(String holdId) throws StockHoldNotFoundException, BookNotFoundException, BookStockExceededException, BookStockConflictException;
+}
@@ -0,0 +1,39 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.StockLevelDTO;
+import com.dio.bookstore.dto.StockMovementDTO;
+import com.dio.bookstore.journal.StockJournal;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnProperty(name = "bookstore.stock.journal.enabled", havingValue = "true", matchIfMissing = true)
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockJournalController implements StockJournalControllerDocs {
+
+    private final StockJournal stockJournal;
+
+    @GetMapping("/stock/history")
+    public List<StockLevelDTO> stockAt(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at,
+                                       @RequestParam(required = false) Long id) {
+        return stockJournal.stockAt(at, id);
+    }
+
+    @GetMapping("/{id}/stock/movements")
+    public List<StockMovementDTO> movements(@PathVariable Long id,
+                                            @RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        return stockJournal.movements(id, after, limit);
+    }
+}
@@ -0,0 +1,28 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.dto.StockLevelDTO;
+import com.dio.bookstore.dto.StockMovementDTO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import java.time.Instant;
+import java.util.List;
+
+@Api("Reads the history of book stock")
+public interface StockJournalControllerDocs {
+
+    @ApiOperation(value = "Rebuilds the stock of every book, or of one book, as it was at a past instant")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stock per book at the instant; empty before the journal started"),
+            @ApiResponse(code = 400, message = "Missing or malformed instant")
+    })
+    List<StockLevelDTO> stockAt(Instant at, Long id);
+
+    @ApiOperation(value = "Lists the stock movements of a book in the order they were recorded")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Movements after the given sequence, oldest first")
+    })
+    List<StockMovementDTO> movements(Long id, long after, int limit);
+}
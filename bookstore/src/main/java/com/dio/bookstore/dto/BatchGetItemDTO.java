@@ -0,0 +1,21 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetItemDTO {
+
+    private Long id;
+
+    private String title;
+
+    private boolean found;
+
+    private BookDTO book;
+}
@@ -0,0 +1,30 @@
+package com.dio.bookstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetRequestDTO {
+
+    @Builder.Default
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    @Size(max = 1000)
+    private List<@NotNull Long> ids = new ArrayList<>();
+
+    @Builder.Default
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    @Size(max = 1000)
+    private List<@NotNull String> titles = new ArrayList<>();
+}
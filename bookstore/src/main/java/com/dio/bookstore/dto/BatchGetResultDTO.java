@@ -0,0 +1,15 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetResultDTO {
+
+    private List<BatchGetItemDTO> results;
+}
@@ -0,0 +1,28 @@
+package com.dio.bookstore.dto;
+
+import com.dio.bookstore.enums.BatchMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockAdjustmentDTO {
+
+    @NotNull
+    @Builder.Default
+    private BatchMode mode = BatchMode.ALL_OR_NOTHING;
+
+    @NotEmpty
+    @Size(max = 10000)
+    private List<@Valid @NotNull StockAdjustmentDTO> adjustments;
+}
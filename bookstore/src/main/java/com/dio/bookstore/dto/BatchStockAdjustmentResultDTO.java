@@ -0,0 +1,19 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockAdjustmentResultDTO {
+
+    private boolean committed;
+
+    private List<StockAdjustmentResultDTO> results;
+}
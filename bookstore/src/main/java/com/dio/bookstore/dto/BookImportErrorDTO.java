@@ -0,0 +1,17 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportErrorDTO {
+
+    private long line;
+
+    private String title;
+
+    private String message;
+}
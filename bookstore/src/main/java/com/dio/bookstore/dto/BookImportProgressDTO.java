@@ -0,0 +1,25 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportProgressDTO {
+
+    private long processed;
+
+    private long imported;
+
+    private long duplicates;
+
+    private long failed;
+
+    private boolean done;
+
+    private List<BookImportErrorDTO> errors;
+}
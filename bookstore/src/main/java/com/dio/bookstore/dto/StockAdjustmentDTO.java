@@ -0,0 +1,21 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentDTO {
+
+    @NotNull
+    private Long id;
+
+    @NotNull
+    private Integer delta;
+}
@@ -0,0 +1,22 @@
+package com.dio.bookstore.dto;
+
+import com.dio.bookstore.enums.StockAdjustmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResultDTO {
+
+    private Long id;
+
+    private Integer delta;
+
+    private StockAdjustmentStatus status;
+
+    private Integer quantity;
+}
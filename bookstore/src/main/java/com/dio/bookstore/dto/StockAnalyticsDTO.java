@@ -0,0 +1,17 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAnalyticsDTO {
+
+    private StockTotalsDTO total;
+
+    private List<StockTotalsDTO> genres;
+}
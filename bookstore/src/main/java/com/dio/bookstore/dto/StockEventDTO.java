@@ -0,0 +1,24 @@
+package com.dio.bookstore.dto;
+
+import com.dio.bookstore.enums.BookChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEventDTO {
+
+    private long offset;
+
+    private BookChangeType type;
+
+    private Long id;
+
+    private String title;
+
+    private Integer quantity;
+
+    private Integer max;
+}
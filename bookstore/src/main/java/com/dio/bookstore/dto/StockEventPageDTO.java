@@ -0,0 +1,19 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEventPageDTO {
+
+    private List<StockEventDTO> events;
+
+    private long nextOffset;
+
+    private boolean reset;
+}
@@ -0,0 +1,23 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldDTO {
+
+    private String id;
+
+    private Long bookId;
+
+    private Integer quantity;
+
+    private Instant expiresAt;
+}
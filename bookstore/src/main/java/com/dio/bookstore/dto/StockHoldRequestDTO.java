@@ -0,0 +1,25 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldRequestDTO {
+
+    @NotNull
+    @Min(1)
+    @Max(10)
+    private Integer quantity;
+
+    @Min(1)
+    private Long ttlSeconds;
+}
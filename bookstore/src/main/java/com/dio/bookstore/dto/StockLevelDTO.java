@@ -0,0 +1,15 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelDTO {
+
+    private Long id;
+
+    private Integer quantity;
+}
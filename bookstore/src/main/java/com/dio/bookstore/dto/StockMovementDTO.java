@@ -0,0 +1,26 @@
+package com.dio.bookstore.dto;
+
+import com.dio.bookstore.enums.BookChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDTO {
+
+    private Long sequence;
+
+    private Long id;
+
+    private BookChangeType type;
+
+    private Integer delta;
+
+    private Integer quantity;
+
+    private Instant recordedAt;
+}
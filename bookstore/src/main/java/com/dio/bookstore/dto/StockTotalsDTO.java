@@ -0,0 +1,21 @@
+package com.dio.bookstore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTotalsDTO {
+
+    private String name;
+
+    private long titles;
+
+    private long quantity;
+
+    private long max;
+
+    private double fillRatio;
+}
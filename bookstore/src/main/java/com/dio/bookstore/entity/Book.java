@@ -6,16 +6,31 @@ import com.dio.bookstore.enums.BookType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_author", columnList = "author, id"),
+        @Index(name = "idx_book_genre", columnList = "genre, id"),
+        @Index(name = "idx_book_genre_author", columnList = "genre, author, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
 
+    public static final String ID_SEQUENCE = "book_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @GenericGenerator(name = ID_SEQUENCE, strategy = "com.dio.bookstore.entity.BookIdGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = ID_SEQUENCE),
+            @Parameter(name = "increment_size", value = "" + ID_ALLOCATION_SIZE),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -33,4 +48,7 @@ public class Book {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private BookType genre;
+
+    @Version
+    private long version;
 }
@@ -0,0 +1,29 @@
+package com.dio.bookstore.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator whose allocation size can be changed per deployment through the
+ * {@value #ALLOCATION_SIZE_SETTING} Hibernate setting instead of the mapping annotation.
+ */
+public class BookIdGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "bookstore.id.allocation-size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(ALLOCATION_SIZE_SETTING);
+        if (allocationSize != null) {
+            params.setProperty(INCREMENT_PARAM, allocationSize.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.dio.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHold {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,49 @@
+package com.dio.bookstore.entity;
+
+import com.dio.bookstore.enums.BookChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * One entry of the append-only stock journal. Ids are assigned in the order the changes
+ * are recorded, so they also order {@code recordedAt}.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = {
+        @Index(columnList = "recordedAt"),
+        @Index(columnList = "bookId, id")
+})
+public class StockMovement {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BookChangeType type;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private Instant recordedAt;
+}
@@ -0,0 +1,30 @@
+package com.dio.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Stock of every book after applying the journal up to and including movement {@code id};
+ * {@code coversUntil} is the time that movement was recorded.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(columnList = "coversUntil"))
+public class StockSnapshot {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Instant coversUntil;
+}
@@ -0,0 +1,34 @@
+package com.dio.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(columnList = "snapshotId, bookId"))
+public class StockSnapshotEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long snapshotId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private int quantity;
+}
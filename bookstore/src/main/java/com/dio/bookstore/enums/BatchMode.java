@@ -0,0 +1,14 @@
+package com.dio.bookstore.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum BatchMode {
+
+    ALL_OR_NOTHING("All or nothing"),
+    BEST_EFFORT("Best effort");
+
+    private final String description;
+}
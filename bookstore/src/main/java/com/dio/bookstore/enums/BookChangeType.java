@@ -0,0 +1,15 @@
+package com.dio.bookstore.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum BookChangeType {
+
+    CREATED("Created"),
+    STOCK_CHANGED("Stock changed"),
+    DELETED("Deleted");
+
+    private final String description;
+}
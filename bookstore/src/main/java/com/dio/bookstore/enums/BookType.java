@@ -3,6 +3,10 @@ package com.dio.bookstore.enums;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+/**
+ * Binary clients and the MVStore book store see the genre as its ordinal, so new genres
+ * are only appended.
+ */
 @Getter
 @AllArgsConstructor
 public enum BookType {
@@ -0,0 +1,14 @@
+package com.dio.bookstore.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ImportFormat {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String description;
+}
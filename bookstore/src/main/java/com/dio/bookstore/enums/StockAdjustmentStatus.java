@@ -0,0 +1,16 @@
+package com.dio.bookstore.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StockAdjustmentStatus {
+
+    APPLIED("Applied"),
+    NOT_FOUND("Book not found"),
+    STOCK_EXCEEDED("Stock limits exceeded"),
+    ROLLED_BACK("Rolled back");
+
+    private final String description;
+}
@@ -0,0 +1,37 @@
+package com.dio.bookstore.event;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    private final BookChangeType type;
+
+    private final BookDTO book;
+
+    /**
+     * Stock added to (positive) or taken from (negative) the book by this change; a created
+     * book brings its whole quantity and a deleted one takes it away.
+     */
+    private final int delta;
+
+    public BookChangedEvent(BookChangeType type, BookDTO book) {
+        this(type, book, defaultDelta(type, book));
+    }
+
+    private static int defaultDelta(BookChangeType type, BookDTO book) {
+        if (type == BookChangeType.CREATED) {
+            return book.getQuantity();
+        }
+        if (type == BookChangeType.DELETED) {
+            return -book.getQuantity();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.dio.bookstore.event;
+
+import com.dio.bookstore.dto.BookDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a book's stock crosses the low-stock threshold.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LowStockEvent {
+
+    private final BookDTO book;
+
+    /**
+     * True when the stock dropped below the threshold, false when it is back at or above it.
+     */
+    private final boolean low;
+}
@@ -0,0 +1,219 @@
+package com.dio.bookstore.event;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockEventDTO;
+import com.dio.bookstore.dto.StockEventPageDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded ring buffer of book changes, addressed by a monotonically increasing offset.
+ * Subscribers resume from any offset still in the buffer; one that asks for an offset
+ * already overwritten, or one not handed out yet (a cursor from before a restart), gets a
+ * reset marker and continues from the oldest retained event.
+ * Events are pushed to SSE subscribers and waiting long-poll requests from a small
+ * dispatcher pool, never from the thread that changed the stock.
+ */
+@Slf4j
+@Component
+public class StockEventLog {
+
+    private static final String RESET_EVENT = "reset";
+
+    private final StockEventDTO[] ring;
+    private final int maxBatchSize;
+    private final long sseTimeoutMillis;
+    private final long pollTimeoutMillis;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Queue<Poll> polls = new ConcurrentLinkedQueue<>();
+    private final ExecutorService dispatcher;
+
+    private long nextOffset;
+
+    public StockEventLog(@Value("${bookstore.stock.events.capacity:10000}") int capacity,
+                         @Value("${bookstore.stock.events.max-batch-size:500}") int maxBatchSize,
+                         @Value("${bookstore.stock.events.sse-timeout:30m}") Duration sseTimeout,
+                         @Value("${bookstore.stock.events.poll-timeout:25s}") Duration pollTimeout,
+                         @Value("${bookstore.stock.events.dispatcher-threads:4}") int dispatcherThreads) {
+        this.ring = new StockEventDTO[capacity];
+        this.maxBatchSize = maxBatchSize;
+        this.sseTimeoutMillis = sseTimeout.toMillis();
+        this.pollTimeoutMillis = pollTimeout.toMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(Subscription::close);
+        dispatcher.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDTO book = event.getBook();
+        synchronized (this) {
+            long offset = nextOffset++;
+            ring[(int) (offset % ring.length)] = new StockEventDTO(offset, event.getType(), book.getId(), book.getTitle(), book.getQuantity(), book.getMax());
+        }
+        subscriptions.forEach(Subscription::schedule);
+        if (!polls.isEmpty()) {
+            dispatcher.execute(this::completePolls);
+        }
+    }
+
+    public synchronized long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Reads up to {@code limit} events starting at {@code from}, or at the oldest retained
+     * event when {@code from} has already been overwritten or lies beyond the newest one.
+     */
+    public synchronized StockEventPageDTO read(long from, int limit) {
+        long oldestOffset = Math.max(0, nextOffset - ring.length);
+        boolean reset = from < oldestOffset || from > nextOffset;
+        long start = reset ? oldestOffset : from;
+        long end = Math.min(nextOffset, start + Math.min(Math.max(limit, 1), maxBatchSize));
+        List<StockEventDTO> events = new ArrayList<>((int) (end - start));
+        for (long offset = start; offset < end; offset++) {
+            events.add(ring[(int) (offset % ring.length)]);
+        }
+        return new StockEventPageDTO(events, end, reset);
+    }
+
+    /**
+     * Streams every event from {@code from} onwards, or only new events when it is null.
+     */
+    public SseEmitter subscribe(Long from) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Subscription subscription = new Subscription(emitter, from == null ? getNextOffset() : from);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        subscriptions.add(subscription);
+        subscription.schedule();
+        return emitter;
+    }
+
+    /**
+     * Answers at once when events from {@code from} are available, otherwise waits for the
+     * next one until the poll timeout and then answers with an empty page.
+     */
+    public DeferredResult<StockEventPageDTO> poll(long from, int limit) {
+        DeferredResult<StockEventPageDTO> result = new DeferredResult<>(pollTimeoutMillis,
+                () -> new StockEventPageDTO(Collections.emptyList(), from, false));
+        StockEventPageDTO page = read(from, limit);
+        if (!page.getEvents().isEmpty() || page.isReset()) {
+            result.setResult(page);
+            return result;
+        }
+        Poll poll = new Poll(result, from, limit);
+        polls.add(poll);
+        result.onCompletion(() -> polls.remove(poll));
+        if (getNextOffset() > from) {
+            dispatcher.execute(this::completePolls);
+        }
+        return result;
+    }
+
+    private void completePolls() {
+        for (Poll poll : polls) {
+            StockEventPageDTO page = read(poll.from, poll.limit);
+            if (!page.getEvents().isEmpty() || page.isReset()) {
+                poll.result.setResult(page);
+                polls.remove(poll);
+            }
+        }
+    }
+
+    private static final class Poll {
+        private final DeferredResult<StockEventPageDTO> result;
+        private final long from;
+        private final int limit;
+
+        private Poll(DeferredResult<StockEventPageDTO> result, long from, int limit) {
+            this.result = result;
+            this.from = from;
+            this.limit = limit;
+        }
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long next;
+        private boolean closed;
+
+        private Subscription(SseEmitter emitter, long next) {
+            this.emitter = emitter;
+            this.next = next;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(() -> {
+                    scheduled.set(false);
+                    pump();
+                });
+            }
+        }
+
+        private synchronized void pump() {
+            try {
+                StockEventPageDTO page;
+                do {
+                    if (closed) {
+                        return;
+                    }
+                    page = read(next, maxBatchSize);
+                    if (page.isReset()) {
+                        emitter.send(SseEmitter.event().name(RESET_EVENT).data(page.getEvents().isEmpty() ? page.getNextOffset() : page.getEvents().get(0).getOffset()));
+                    }
+                    for (StockEventDTO event : page.getEvents()) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.getOffset()))
+                                .name(event.getType().name())
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                    next = page.getNextOffset();
+                } while (!page.getEvents().isEmpty());
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping stock event subscriber", e);
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (!closed) {
+                closed = true;
+                subscriptions.remove(this);
+                emitter.complete();
+            }
+        }
+    }
+}
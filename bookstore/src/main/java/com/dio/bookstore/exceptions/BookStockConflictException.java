@@ -0,0 +1,12 @@
+package com.dio.bookstore.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class BookStockConflictException extends Exception{
+
+    public BookStockConflictException(Long id, int attempts) {
+        super(String.format("Stock of book with id %s is under contention, update gave up after %s attempts.", id, attempts));
+    }
+}
@@ -0,0 +1,12 @@
+package com.dio.bookstore.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInProgressException extends RuntimeException{
+
+    public IdempotencyKeyInProgressException(String key) {
+        super(String.format("A request with idempotency key %s is still in progress, retry later.", key));
+    }
+}
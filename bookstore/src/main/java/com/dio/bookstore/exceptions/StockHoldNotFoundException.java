@@ -0,0 +1,12 @@
+package com.dio.bookstore.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class StockHoldNotFoundException extends Exception{
+
+    public StockHoldNotFoundException(String id) {
+        super(String.format("Stock hold with id %s not found, it was already committed, released or expired.", id));
+    }
+}
@@ -0,0 +1,299 @@
+package com.dio.bookstore.journal;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockLevelDTO;
+import com.dio.bookstore.dto.StockMovementDTO;
+import com.dio.bookstore.entity.StockMovement;
+import com.dio.bookstore.entity.StockSnapshot;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.repository.StockJournalJdbcRepository;
+import com.dio.bookstore.service.StockUpdater;
+import com.dio.bookstore.store.BookStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only journal of stock movements. Each change to a book's stock becomes one
+ * {@link StockMovement} with its delta, the resulting quantity and the time it was
+ * recorded; rows are never updated or deleted.
+ *
+ * <p>Recording a movement only takes a sequence number and adds it to an in-memory buffer;
+ * a background thread writes the buffer in one JDBC batch every flush interval, so the
+ * mutation path never waits on the database. Movements still in the buffer are lost if the
+ * process dies, at most one flush interval's worth.
+ *
+ * <p>Every snapshot interval the stock of all books is written as a {@link StockSnapshot}
+ * of the journal up to its last movement. Stock at a past instant is the latest snapshot
+ * at or before it plus the deltas recorded between the two, so a lookup reads one snapshot
+ * and a bounded tail instead of the whole journal.
+ *
+ * <p>Every start writes a fresh baseline snapshot read from the store, so movements lost
+ * with the buffer or changes made while the journal was down do not carry over from one
+ * run to the next. Where the journal and the store disagree, the difference is recorded
+ * first as a correcting movement, keeping the deltas consistent with the snapshots.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.stock.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class StockJournal {
+
+    public static final int MAX_MOVEMENTS_PAGE = 1000;
+
+    private final StockJournalJdbcRepository journalRepository;
+    private final BookStore bookStore;
+    private final StockUpdater stockUpdater;
+    private final TransactionTemplate writeTransaction;
+    private final Duration flushInterval;
+    private final Duration snapshotInterval;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-journal-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object flushLock = new Object();
+    private final Counter flushedMovements;
+
+    private List<StockMovement> buffer = new ArrayList<>();
+    private long lastId;
+    private Instant lastRecordedAt = Instant.EPOCH;
+
+    private List<StockMovement> unflushed = new ArrayList<>();
+    private long lastFlushedId;
+    private Instant lastFlushedAt;
+    private long lastSnapshotId;
+
+    public StockJournal(StockJournalJdbcRepository journalRepository,
+                        BookStore bookStore,
+                        StockUpdater stockUpdater,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${bookstore.stock.journal.flush-interval:100ms}") Duration flushInterval,
+                        @Value("${bookstore.stock.journal.snapshot-interval:15m}") Duration snapshotInterval) {
+        this.journalRepository = journalRepository;
+        this.bookStore = bookStore;
+        this.stockUpdater = stockUpdater;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushInterval = flushInterval;
+        this.snapshotInterval = snapshotInterval;
+        this.flushedMovements = meterRegistry.counter("bookstore.stock.journal.flushed");
+        meterRegistry.gauge("bookstore.stock.journal.pending", this, StockJournal::pending);
+    }
+
+    @PostConstruct
+    public void start() {
+        lastId = journalRepository.findLastMovementId();
+        lastFlushedId = lastId;
+        lastRecordedAt = journalRepository.findRecordedAt(lastId).orElse(Instant.EPOCH);
+        Optional<StockSnapshot> latestSnapshot = journalRepository.findLatestSnapshot(Instant.MAX);
+        if (latestSnapshot.isPresent()) {
+            lastSnapshotId = latestSnapshot.get().getId();
+            lastRecordedAt = max(lastRecordedAt, latestSnapshot.get().getCoversUntil());
+        }
+        lastFlushedAt = lastRecordedAt;
+        writeBaseline();
+        long flushMillis = flushInterval.toMillis();
+        long snapshotMillis = snapshotInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::scheduledFlush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        writer.scheduleWithFixedDelay(this::scheduledSnapshot, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDTO book = event.getBook();
+        int quantity = event.getType() == BookChangeType.DELETED ? 0 : book.getQuantity();
+        synchronized (this) {
+            Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+            lastRecordedAt = max(lastRecordedAt, now);
+            buffer.add(new StockMovement(++lastId, book.getId(), event.getType(), event.getDelta(), quantity, lastRecordedAt));
+        }
+    }
+
+    /**
+     * Writes every buffered movement; movements recorded before this call are visible to
+     * reads once it returns.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<StockMovement> movements;
+            synchronized (this) {
+                movements = buffer;
+                buffer = new ArrayList<>();
+            }
+            unflushed.addAll(movements);
+            if (unflushed.isEmpty()) {
+                return;
+            }
+            List<StockMovement> batch = unflushed;
+            writeTransaction.executeWithoutResult(status -> journalRepository.insertMovements(batch));
+            StockMovement last = batch.get(batch.size() - 1);
+            lastFlushedId = last.getId();
+            lastFlushedAt = last.getRecordedAt();
+            flushedMovements.increment(batch.size());
+            unflushed = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the journal up to its last movement, unless nothing was recorded
+     * since the previous one.
+     */
+    public void snapshot() {
+        synchronized (flushLock) {
+            flush();
+            if (lastFlushedId == lastSnapshotId) {
+                return;
+            }
+            StockSnapshot snapshot = new StockSnapshot(lastFlushedId, lastFlushedAt);
+            Map<Long, Integer> quantities = rebuild(snapshot.getId(), snapshot.getCoversUntil(), null);
+            writeTransaction.executeWithoutResult(status -> journalRepository.insertSnapshot(snapshot, quantities));
+            lastSnapshotId = snapshot.getId();
+            log.debug("Stock journal snapshot {} covers {} books until {}", snapshot.getId(), quantities.size(), snapshot.getCoversUntil());
+        }
+    }
+
+    /**
+     * Rebuilds the stock of every book, or of one book when {@code bookId} is given, as it
+     * was at {@code at}. Instants before the journal started have no stock to report.
+     */
+    public List<StockLevelDTO> stockAt(Instant at, Long bookId) {
+        long untilId;
+        synchronized (flushLock) {
+            flush();
+            untilId = lastFlushedId;
+        }
+        return rebuild(untilId, at, bookId).entrySet().stream()
+                .map(quantity -> new StockLevelDTO(quantity.getKey(), quantity.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    public List<StockMovementDTO> movements(Long bookId, long after, int limit) {
+        flush();
+        return journalRepository.findMovements(bookId, after, Math.min(limit, MAX_MOVEMENTS_PAGE));
+    }
+
+    private Map<Long, Integer> rebuild(long untilId, Instant at, Long bookId) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Optional<StockSnapshot> snapshot = journalRepository.findLatestSnapshot(at);
+        if (snapshot.isEmpty()) {
+            return quantities;
+        }
+        long snapshotId = snapshot.get().getId();
+        journalRepository.readSnapshotEntries(snapshotId, bookId, (id, quantity, deleted) -> quantities.put(id, quantity));
+        journalRepository.readMovementTotals(snapshotId, untilId, at, bookId, (id, delta, deleted) -> {
+            if (deleted) {
+                quantities.remove(id);
+            } else {
+                quantities.merge(id, delta, Integer::sum);
+            }
+        });
+        return quantities;
+    }
+
+    /**
+     * Writes a snapshot of the stock read from the store, recording first a correcting
+     * movement for every book whose stock in the journal differs. Runs on start, before
+     * the application takes requests, so no change is in flight while the store is read.
+     */
+    void writeBaseline() {
+        synchronized (flushLock) {
+            flush();
+            Map<Long, Integer> quantities = new TreeMap<>();
+            bookStore.forEachOrderedById(book -> quantities.put(book.getId(), stockUpdater.current(book).getQuantity()));
+            boolean journaled = journalRepository.findLatestSnapshot(lastFlushedAt).isPresent();
+            Map<Long, Integer> journaledQuantities = journaled ? rebuild(lastFlushedId, lastFlushedAt, null) : quantities;
+            Instant coversUntil;
+            int corrections = 0;
+            synchronized (this) {
+                lastRecordedAt = max(lastRecordedAt, Instant.now().truncatedTo(ChronoUnit.MICROS));
+                coversUntil = lastRecordedAt;
+                for (Map.Entry<Long, Integer> journaledQuantity : journaledQuantities.entrySet()) {
+                    if (!quantities.containsKey(journaledQuantity.getKey())) {
+                        buffer.add(new StockMovement(++lastId, journaledQuantity.getKey(), BookChangeType.DELETED,
+                                -journaledQuantity.getValue(), 0, coversUntil));
+                        corrections++;
+                    }
+                }
+                for (Map.Entry<Long, Integer> quantity : quantities.entrySet()) {
+                    Integer journaledQuantity = journaledQuantities.get(quantity.getKey());
+                    if (journaledQuantity == null) {
+                        buffer.add(new StockMovement(++lastId, quantity.getKey(), BookChangeType.CREATED,
+                                quantity.getValue(), quantity.getValue(), coversUntil));
+                        corrections++;
+                    } else if (!journaledQuantity.equals(quantity.getValue())) {
+                        buffer.add(new StockMovement(++lastId, quantity.getKey(), BookChangeType.STOCK_CHANGED,
+                                quantity.getValue() - journaledQuantity, quantity.getValue(), coversUntil));
+                        corrections++;
+                    }
+                }
+            }
+            flush();
+            if (journaled && lastFlushedId == lastSnapshotId) {
+                return;
+            }
+            StockSnapshot baseline = new StockSnapshot(lastFlushedId, coversUntil);
+            writeTransaction.executeWithoutResult(status -> journalRepository.insertSnapshot(baseline, quantities));
+            lastSnapshotId = baseline.getId();
+            lastFlushedAt = coversUntil;
+            if (corrections > 0) {
+                log.warn("Stock journal differed from the store for {} books, corrections were recorded", corrections);
+            }
+            log.info("Stock journal started with a baseline snapshot of {} books", quantities.size());
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Stock journal flush failed, the movements are kept for the next attempt", e);
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Stock journal snapshot failed", e);
+        }
+    }
+
+    private synchronized int pending() {
+        return buffer.size();
+    }
+
+    private static Instant max(Instant first, Instant second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
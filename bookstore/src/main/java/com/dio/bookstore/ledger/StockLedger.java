@@ -0,0 +1,354 @@
+package com.dio.bookstore.ledger;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory stock table keyed by primitive book id. The table is split into lock stripes,
+ * each an open-addressing array of ids, quantities, maximums and the delta not yet
+ * written to the database, so updates to different books rarely share a lock.
+ *
+ * <p>A delta only changes the quantity once it is durable in the {@link Journal}. Until then
+ * it is reserved: deltas in flight count against the bounds in the direction that could
+ * break them, so every delta admitted alongside them stays valid whether they land or not,
+ * and concurrent writers still share one sync. A delta whose append or sync fails is never
+ * applied.
+ *
+ * <p>Writers hold a shared barrier from the append to the apply.
+ * {@link #drain(DeltaSink, long...)} takes the barrier exclusively, which lets it hand out a set of
+ * pending deltas together with the exact journal position they cover.
+ */
+public class StockLedger {
+
+    public static final int NOT_LOADED = -1;
+    public static final int EXCEEDED = -2;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final Journal journal;
+    private final ReadWriteLock barrier = new ReentrantReadWriteLock();
+
+    public StockLedger(int stripeCount, Journal journal) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+        this.journal = journal;
+    }
+
+    /**
+     * Applies {@code delta} if the resulting quantity stays within zero and max, after the
+     * journal has made it durable.
+     *
+     * @return the new quantity, {@link #NOT_LOADED} when the book is not in the ledger yet,
+     * or {@link #EXCEEDED} when the delta would break the stock bounds
+     */
+    public int adjust(long id, int delta) {
+        int hash = hash(id);
+        Stripe stripe = stripes[hash & stripeMask];
+        barrier.readLock().lock();
+        try {
+            int reserved;
+            synchronized (stripe) {
+                reserved = stripe.reserve(id, hash, delta);
+            }
+            if (reserved < 0) {
+                return reserved;
+            }
+            try {
+                journal.append(id, delta);
+            } catch (RuntimeException e) {
+                cancel(stripe, id, hash, delta);
+                throw e;
+            }
+            try {
+                journal.sync();
+            } catch (RuntimeException e) {
+                cancel(stripe, id, hash, delta);
+                // the record may still reach the log with a later sync, so it is cancelled there too
+                try {
+                    journal.append(id, -delta);
+                } catch (RuntimeException compensationFailure) {
+                    e.addSuppressed(compensationFailure);
+                }
+                throw e;
+            }
+            synchronized (stripe) {
+                return stripe.apply(id, hash, delta);
+            }
+        } finally {
+            barrier.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seeds the ledger with the persisted stock of a book. An entry already present wins,
+     * since it may carry deltas that are not in the database yet.
+     */
+    public void load(long id, int quantity, int max) {
+        int hash = hash(id);
+        Stripe stripe = stripes[hash & stripeMask];
+        synchronized (stripe) {
+            stripe.putIfAbsent(id, hash, quantity, max);
+        }
+    }
+
+    /**
+     * The quantity of a book with every durable delta applied; reservations still waiting on
+     * the journal are left out.
+     *
+     * @return the quantity, or {@link #NOT_LOADED} when the book is not in the ledger
+     */
+    public int quantity(long id) {
+        int hash = hash(id);
+        Stripe stripe = stripes[hash & stripeMask];
+        synchronized (stripe) {
+            return stripe.quantity(id, hash);
+        }
+    }
+
+    /**
+     * Replaces the persisted stock a book was seeded with, keeping the deltas applied since the
+     * last drain on top of it. Does nothing when the book is not in the ledger.
+     */
+    public void resync(long id, int quantity, int max) {
+        int hash = hash(id);
+        Stripe stripe = stripes[hash & stripeMask];
+        synchronized (stripe) {
+            stripe.resync(id, hash, quantity, max);
+        }
+    }
+
+    /**
+     * Drops a book from the ledger together with any delta it still owes the database.
+     */
+    public void remove(long id) {
+        int hash = hash(id);
+        Stripe stripe = stripes[hash & stripeMask];
+        synchronized (stripe) {
+            stripe.remove(id, hash);
+        }
+    }
+
+    /**
+     * Hands every pending delta to {@code sink}, resets them and rotates the journal. The
+     * {@code evictedIds} are removed in the same step, so no delta can slip in between.
+     *
+     * @return the last journal sequence whose delta is included in the drained set
+     */
+    public long drain(DeltaSink sink, long... evictedIds) {
+        barrier.writeLock().lock();
+        try {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.drain(sink);
+                }
+            }
+            for (long id : evictedIds) {
+                remove(id);
+            }
+            return journal.rotate();
+        } finally {
+            barrier.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private static void cancel(Stripe stripe, long id, int hash, int delta) {
+        synchronized (stripe) {
+            stripe.release(id, hash, delta);
+        }
+    }
+
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    public interface Journal {
+
+        void append(long id, int delta);
+
+        /**
+         * Makes every record appended before this call durable.
+         */
+        void sync();
+
+        long rotate();
+    }
+
+    @FunctionalInterface
+    public interface DeltaSink {
+
+        void accept(long id, int delta);
+    }
+
+    private static final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] quantities = new int[INITIAL_CAPACITY];
+        private int[] maxes = new int[INITIAL_CAPACITY];
+        private int[] pending = new int[INITIAL_CAPACITY];
+        private int[] reservedIn = new int[INITIAL_CAPACITY];
+        private int[] reservedOut = new int[INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int size;
+
+        int reserve(long id, int hash, int delta) {
+            int slot = find(id, hash);
+            if (slot < 0) {
+                return NOT_LOADED;
+            }
+            long lowest = (long) quantities[slot] - reservedOut[slot] + Math.min(delta, 0);
+            long highest = (long) quantities[slot] + reservedIn[slot] + Math.max(delta, 0);
+            if (lowest < 0 || highest > maxes[slot]) {
+                return EXCEEDED;
+            }
+            addReservation(slot, delta);
+            return 0;
+        }
+
+        void release(long id, int hash, int delta) {
+            int slot = find(id, hash);
+            if (slot >= 0) {
+                removeReservation(slot, delta);
+            }
+        }
+
+        int quantity(long id, int hash) {
+            int slot = find(id, hash);
+            return slot < 0 ? NOT_LOADED : quantities[slot];
+        }
+
+        void resync(long id, int hash, int quantity, int max) {
+            int slot = find(id, hash);
+            if (slot >= 0) {
+                quantities[slot] = quantity + pending[slot];
+                maxes[slot] = max;
+            }
+        }
+
+        int apply(long id, int hash, int delta) {
+            int slot = find(id, hash);
+            if (slot < 0) {
+                return NOT_LOADED;
+            }
+            removeReservation(slot, delta);
+            quantities[slot] += delta;
+            pending[slot] += delta;
+            return quantities[slot];
+        }
+
+        private void addReservation(int slot, int delta) {
+            if (delta < 0) {
+                reservedOut[slot] -= delta;
+            } else {
+                reservedIn[slot] += delta;
+            }
+        }
+
+        private void removeReservation(int slot, int delta) {
+            if (delta < 0) {
+                reservedOut[slot] += delta;
+            } else {
+                reservedIn[slot] -= delta;
+            }
+        }
+
+        void putIfAbsent(long id, int hash, int quantity, int max) {
+            if (find(id, hash) >= 0) {
+                return;
+            }
+            if ((size + 1) * 4 > ids.length * 3) {
+                grow();
+            }
+            insert(id, hash, quantity, max, 0, 0, 0);
+            size++;
+        }
+
+        void remove(long id, int hash) {
+            int slot = find(id, hash);
+            if (slot < 0) {
+                return;
+            }
+            used[slot] = false;
+            size--;
+            int mask = ids.length - 1;
+            for (int next = (slot + 1) & mask; used[next]; next = (next + 1) & mask) {
+                used[next] = false;
+                insert(ids[next], hash(ids[next]), quantities[next], maxes[next], pending[next], reservedIn[next], reservedOut[next]);
+            }
+        }
+
+        void drain(DeltaSink sink) {
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (used[slot] && pending[slot] != 0) {
+                    sink.accept(ids[slot], pending[slot]);
+                    pending[slot] = 0;
+                }
+            }
+        }
+
+        private int find(long id, int hash) {
+            int mask = ids.length - 1;
+            for (int slot = (hash >>> 16) & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long id, int hash, int quantity, int max, int pendingDelta, int in, int out) {
+            int mask = ids.length - 1;
+            int slot = (hash >>> 16) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            quantities[slot] = quantity;
+            maxes[slot] = max;
+            pending[slot] = pendingDelta;
+            reservedIn[slot] = in;
+            reservedOut[slot] = out;
+            used[slot] = true;
+        }
+
+        private void grow() {
+            long[] oldIds = ids;
+            int[] oldQuantities = quantities;
+            int[] oldMaxes = maxes;
+            int[] oldPending = pending;
+            int[] oldReservedIn = reservedIn;
+            int[] oldReservedOut = reservedOut;
+            boolean[] oldUsed = used;
+            int capacity = oldIds.length << 1;
+            ids = new long[capacity];
+            quantities = new int[capacity];
+            maxes = new int[capacity];
+            pending = new int[capacity];
+            reservedIn = new int[capacity];
+            reservedOut = new int[capacity];
+            used = new boolean[capacity];
+            for (int slot = 0; slot < oldIds.length; slot++) {
+                if (oldUsed[slot]) {
+                    insert(oldIds[slot], hash(oldIds[slot]), oldQuantities[slot], oldMaxes[slot], oldPending[slot],
+                            oldReservedIn[slot], oldReservedOut[slot]);
+                }
+            }
+        }
+    }
+}
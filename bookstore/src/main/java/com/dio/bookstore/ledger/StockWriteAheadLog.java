@@ -0,0 +1,274 @@
+package com.dio.bookstore.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of stock deltas, split into segments named after their first sequence.
+ * Each record is {@code seq, id, delta, crc32}; a torn record at the end of a segment is
+ * ignored on replay. Callers append under the ledger barrier and then call
+ * {@link #sync()}, which flushes and forces everything appended so far, so concurrent
+ * writers share a single fsync.
+ */
+@Slf4j
+public class StockWriteAheadLog implements StockLedger.Journal, Closeable {
+
+    private static final int RECORD_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int BUFFER_RECORDS = 4096;
+    private static final String SEGMENT_PREFIX = "stock-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final Object syncLock = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * BUFFER_RECORDS);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private long segmentFirstSequence;
+    private long lastSequence;
+    private volatile long durableSequence;
+
+    public StockWriteAheadLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Reads every record with a sequence above {@code afterSequence} from the existing segments.
+     *
+     * @return the highest sequence found on disk, or {@code afterSequence} when there is none
+     */
+    public long replay(long afterSequence, StockLedger.DeltaSink sink) {
+        long highestSequence = afterSequence;
+        for (Path segment : segments()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                highestSequence = Math.max(highestSequence, replaySegment(segment, in, afterSequence, sink));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return highestSequence;
+    }
+
+    /**
+     * Opens a fresh segment; sequences continue after {@code lastSequence}.
+     */
+    public synchronized void open(long lastSequence) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.lastSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        openSegment();
+    }
+
+    @Override
+    public synchronized void append(long id, int delta) {
+        if (!buffer.hasRemaining()) {
+            writeBuffer();
+        }
+        long sequence = ++lastSequence;
+        int start = buffer.position();
+        buffer.putLong(sequence).putLong(id).putInt(delta);
+        crc.reset();
+        crc.update(buffer.array(), start, RECORD_SIZE - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Makes every record appended before this call durable.
+     */
+    @Override
+    public void sync() {
+        long target = lastAppended();
+        if (durableSequence >= target) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSequence >= target) {
+                return;
+            }
+            FileChannel segment;
+            synchronized (this) {
+                writeBuffer();
+                target = lastSequence;
+                segment = channel;
+            }
+            force(segment);
+            durableSequence = target;
+        }
+    }
+
+    /**
+     * Seals the current segment and starts a new one, unless nothing was appended to it.
+     *
+     * @return the last sequence written before the rotation
+     */
+    @Override
+    public long rotate() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (lastSequence < segmentFirstSequence) {
+                    return lastSequence;
+                }
+                writeBuffer();
+                force(channel);
+                closeChannel();
+                durableSequence = lastSequence;
+                openSegment();
+                return durableSequence;
+            }
+        }
+    }
+
+    /**
+     * Deletes sealed segments whose records are all at or below {@code checkpoint}.
+     */
+    public void truncate(long checkpoint) {
+        List<Path> segments = segments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) - 1 <= checkpoint) {
+                try {
+                    Files.deleteIfExists(segments.get(i));
+                } catch (IOException e) {
+                    log.warn("Could not delete stock WAL segment {}", segments.get(i), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes every segment, for a log that belongs to a database which no longer exists.
+     */
+    public void discard() {
+        for (Path segment : segments()) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (channel != null) {
+                    writeBuffer();
+                    force(channel);
+                    closeChannel();
+                }
+            }
+        }
+    }
+
+    private synchronized long lastAppended() {
+        return lastSequence;
+    }
+
+    private long replaySegment(Path segment, DataInputStream in, long afterSequence, StockLedger.DeltaSink sink) throws IOException {
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(record);
+        CRC32 checksum = new CRC32();
+        long highestSequence = afterSequence;
+        while (true) {
+            try {
+                in.readFully(record);
+            } catch (EOFException e) {
+                return highestSequence;
+            }
+            checksum.reset();
+            checksum.update(record, 0, RECORD_SIZE - Integer.BYTES);
+            if ((int) checksum.getValue() != view.getInt(RECORD_SIZE - Integer.BYTES)) {
+                log.warn("Ignoring torn record at the end of stock WAL segment {}", segment);
+                return highestSequence;
+            }
+            long sequence = view.getLong(0);
+            if (sequence > afterSequence) {
+                sink.accept(view.getLong(Long.BYTES), view.getInt(Long.BYTES * 2));
+                highestSequence = Math.max(highestSequence, sequence);
+            }
+        }
+    }
+
+    private void openSegment() {
+        segmentFirstSequence = lastSequence + 1;
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentFirstSequence, SEGMENT_SUFFIX));
+        try {
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    private void force(FileChannel segment) {
+        if (!fsync) {
+            return;
+        }
+        try {
+            segment.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
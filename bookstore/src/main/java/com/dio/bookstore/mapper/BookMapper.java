@@ -3,6 +3,7 @@ package com.dio.bookstore.mapper;
 import com.dio.bookstore.dto.BookDTO;
 import com.dio.bookstore.entity.Book;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper
@@ -10,7 +11,10 @@ public interface BookMapper {
 
     BookMapper INSTANCE = Mappers.getMapper(BookMapper.class);
 
+    @Mapping(target = "version", ignore = true)
     Book toModel(BookDTO bookDTO);
 
     BookDTO toDTO(Book book);
+
+    BookDTO copy(BookDTO bookDTO);
 }
@@ -0,0 +1,69 @@
+package com.dio.bookstore.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public {@code BookService} operation and counts the exceptions it throws,
+ * both tagged with the operation name. The aspect runs outside the transaction advice so
+ * commit time is part of the measurement.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BookServiceMetricsAspect {
+
+    static final String TIMER_NAME = "bookstore.service";
+    static final String EXCEPTION_COUNTER_NAME = "bookstore.service.exceptions";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public BookServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.dio.bookstore.service.BookService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exceptionCounter(operation, e).increment();
+            throw e;
+        } finally {
+            timer(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String operation) {
+        return timers.computeIfAbsent(operation, name -> Timer.builder(TIMER_NAME)
+                .description("Time spent in BookService operations, including the transaction commit")
+                .tag("operation", name)
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry));
+    }
+
+    private Counter exceptionCounter(String operation, Throwable exception) {
+        return Counter.builder(EXCEPTION_COUNTER_NAME)
+                .description("Exceptions thrown by BookService operations")
+                .tag("operation", operation)
+                .tag("exception", exception.getClass().getSimpleName())
+                .register(meterRegistry);
+    }
+}
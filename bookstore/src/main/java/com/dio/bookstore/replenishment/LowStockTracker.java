@@ -0,0 +1,190 @@
+package com.dio.bookstore.replenishment;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.event.LowStockEvent;
+import com.dio.bookstore.service.BookService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * The books whose quantity is below {@code threshold} of their max, kept in id order and
+ * updated from the book change events, so listing them never scans the catalog. The set is
+ * filled once from the catalog read by the warm-up; books changed before that keep the state
+ * their events gave them.
+ *
+ * <p>Events for concurrent changes to one book can arrive in either order, so an event that
+ * would add, keep or drop an entry is only a hint: the book is read again with its live stock
+ * and that read decides. The reads run on one background thread, off the thread committing the
+ * change, and a book waiting for its read is queued once however many events name it. Events
+ * for well stocked books that are not in the set need no read.
+ *
+ * <p>A book entering or leaving the set publishes a {@link LowStockEvent}. A deleted book
+ * leaves the set without one.
+ */
+@Slf4j
+@Component
+public class LowStockTracker {
+
+    public static final int MAX_PAGE = 1000;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookService bookService;
+    private final double threshold;
+    private final ConcurrentSkipListMap<Long, BookDTO> lowStock = new ConcurrentSkipListMap<>();
+    private final Set<Long> changedBeforeLoad = new HashSet<>();
+    private final Set<Long> pendingReads = ConcurrentHashMap.newKeySet();
+    private final Executor reader;
+    private final Counter becameLow;
+    private final Counter recovered;
+
+    private volatile boolean loaded;
+
+    @Autowired
+    public LowStockTracker(ApplicationEventPublisher eventPublisher,
+                           BookService bookService,
+                           MeterRegistry meterRegistry,
+                           @Value("${bookstore.stock.low.threshold:0.2}") double threshold) {
+        this(eventPublisher, bookService, meterRegistry, threshold, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "low-stock-reader");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    LowStockTracker(ApplicationEventPublisher eventPublisher,
+                    BookService bookService,
+                    MeterRegistry meterRegistry,
+                    double threshold,
+                    Executor reader) {
+        this.eventPublisher = eventPublisher;
+        this.bookService = bookService;
+        this.threshold = threshold;
+        this.reader = reader;
+        this.becameLow = meterRegistry.counter("bookstore.stock.low.crossings", "direction", "low");
+        this.recovered = meterRegistry.counter("bookstore.stock.low.crossings", "direction", "recovered");
+        meterRegistry.gaugeMapSize("bookstore.stock.low.books", List.of(), lowStock);
+        meterRegistry.gaugeCollectionSize("bookstore.stock.low.pending-reads", List.of(), pendingReads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reader instanceof ExecutorService) {
+            ((ExecutorService) reader).shutdownNow();
+        }
+    }
+
+    public synchronized void load(Collection<BookDTO> books) {
+        books.forEach(book -> {
+            if (isLow(book) && !changedBeforeLoad.contains(book.getId())) {
+                lowStock.put(book.getId(), book);
+            }
+        });
+        changedBeforeLoad.clear();
+        loaded = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    changedBeforeLoad.add(event.getBook().getId());
+                    apply(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    /**
+     * Up to {@code limit} low-stock books with an id above {@code afterId}, in id order.
+     */
+    public List<BookDTO> list(long afterId, int limit) {
+        return lowStock.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(Math.min(Math.max(limit, 1), MAX_PAGE))
+                .collect(Collectors.toList());
+    }
+
+    public boolean isLow(BookDTO book) {
+        return book.getQuantity() < book.getMax() * threshold;
+    }
+
+    private void apply(BookChangedEvent event) {
+        Long id = event.getBook().getId();
+        if (event.getType() == BookChangeType.DELETED) {
+            try {
+                reader.execute(() -> lowStock.remove(id));
+            } catch (RejectedExecutionException e) {
+                lowStock.remove(id);
+            }
+            return;
+        }
+        if (!isLow(event.getBook()) && !lowStock.containsKey(id)) {
+            return;
+        }
+        if (pendingReads.add(id)) {
+            try {
+                reader.execute(() -> read(id));
+            } catch (RejectedExecutionException e) {
+                pendingReads.remove(id);
+                log.warn("Low stock read of book {} was rejected", id, e);
+            }
+        }
+    }
+
+    /**
+     * Only the reader thread gets here, and deletions are applied on it too, so a read never
+     * races another change to the same entry. The book leaves the pending set before it is
+     * read, so an event committed during the read queues another one.
+     */
+    private void read(Long id) {
+        pendingReads.remove(id);
+        Optional<BookDTO> current;
+        try {
+            current = bookService.findCurrent(id);
+        } catch (RuntimeException e) {
+            log.warn("Low stock read of book {} failed, it waits for its next change", id, e);
+            return;
+        }
+        if (current.isEmpty()) {
+            lowStock.remove(id);
+            return;
+        }
+        BookDTO book = current.get();
+        if (isLow(book)) {
+            if (lowStock.put(id, book) == null) {
+                becameLow.increment();
+                log.debug("Book {} is low on stock: {} of {}", id, book.getQuantity(), book.getMax());
+                eventPublisher.publishEvent(new LowStockEvent(book, true));
+            }
+        } else if (lowStock.remove(id) != null) {
+            recovered.increment();
+            eventPublisher.publishEvent(new LowStockEvent(book, false));
+        }
+    }
+}
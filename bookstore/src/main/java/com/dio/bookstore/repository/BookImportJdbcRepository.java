@@ -0,0 +1,55 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.entity.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class BookImportJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String NEXT_ID_BLOCK_SQL = "SELECT NEXT VALUE FOR " + Book.ID_SEQUENCE;
+
+    private static final String INSERT_BOOK_SQL =
+            "INSERT INTO book (id, title, author, max, quantity, genre, version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int allocationSize;
+
+    public BookImportJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    @Value("${bookstore.id.allocation-size:50}") int allocationSize) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.allocationSize = allocationSize;
+    }
+
+    /**
+     * Reserves {@code count} ids from the book sequence. Each sequence value is the low end of
+     * a block of {@code bookstore.id.allocation-size} ids, the same contract Hibernate's pooled-lo
+     * optimizer follows, so these ids never collide with ones handed out by the entity manager.
+     */
+    public long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        for (int from = 0; from < count; from += allocationSize) {
+            long low = namedParameterJdbcTemplate.getJdbcTemplate().queryForObject(NEXT_ID_BLOCK_SQL, Long.class);
+            for (int i = from; i < Math.min(count, from + allocationSize); i++) {
+                ids[i] = low + i - from;
+            }
+        }
+        return ids;
+    }
+
+    public void insertAll(List<Book> books) {
+        namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_BOOK_SQL, books, BATCH_SIZE, (ps, book) -> {
+            ps.setLong(1, book.getId());
+            ps.setString(2, book.getTitle());
+            ps.setString(3, book.getAuthor());
+            ps.setInt(4, book.getMax());
+            ps.setInt(5, book.getQuantity());
+            ps.setString(6, book.getGenre().name());
+        });
+    }
+}
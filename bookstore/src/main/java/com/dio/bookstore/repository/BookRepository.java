@@ -1,10 +1,50 @@
 package com.dio.bookstore.repository;
 
 import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByTitle(String title);
+
+    List<Book> findByTitleIn(Collection<String> titles);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Book> findByAuthorAndIdGreaterThanOrderByIdAsc(String author, Long id, Pageable pageable);
+
+    List<Book> findByGenreAndIdGreaterThanOrderByIdAsc(BookType genre, Long id, Pageable pageable);
+
+    List<Book> findByAuthorAndGenreAndIdGreaterThanOrderByIdAsc(String author, BookType genre, Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllOrderedById();
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.quantity = b.quantity + :quantity, b.version = b.version + 1 where b.id = :id and b.quantity + :quantity <= b.max")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToIncrement);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.quantity = b.quantity - :quantity, b.version = b.version + 1 where b.id = :id and b.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToDecrement);
 }
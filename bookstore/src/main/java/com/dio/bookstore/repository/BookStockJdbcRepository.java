@@ -0,0 +1,67 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+@Repository
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BookStockJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String ADJUST_QUANTITY_SQL =
+            "UPDATE book SET quantity = quantity + ?, version = version + 1 WHERE id = ? AND quantity + ? >= 0 AND quantity + ? <= max";
+
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int[] adjustQuantities(List<StockAdjustmentDTO> adjustments) {
+        int[][] updatedRowsPerBatch = jdbcTemplate.batchUpdate(ADJUST_QUANTITY_SQL, adjustments, BATCH_SIZE, (ps, adjustment) -> {
+            ps.setInt(1, adjustment.getDelta());
+            ps.setLong(2, adjustment.getId());
+            ps.setInt(3, adjustment.getDelta());
+            ps.setInt(4, adjustment.getDelta());
+        });
+        return Arrays.stream(updatedRowsPerBatch)
+                .flatMapToInt(Arrays::stream)
+                .toArray();
+    }
+
+    /**
+     * Applies the first {@code count} deltas with the same bounds guard as single adjustments.
+     *
+     * @return the updated row count per delta, zero when the book is gone or the delta breaks its bounds
+     */
+    public int[] addQuantities(long[] ids, int[] deltas, int count) {
+        int[] updatedRows = new int[count];
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            int offset = from;
+            int batchSize = Math.min(BATCH_SIZE, count - from);
+            int[] batchRows = jdbcTemplate.batchUpdate(ADJUST_QUANTITY_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, deltas[offset + i]);
+                    ps.setLong(2, ids[offset + i]);
+                    ps.setInt(3, deltas[offset + i]);
+                    ps.setInt(4, deltas[offset + i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchSize;
+                }
+            });
+            System.arraycopy(batchRows, 0, updatedRows, offset, batchSize);
+        }
+        return updatedRows;
+    }
+}
@@ -0,0 +1,7 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.entity.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, String> {
+}
@@ -0,0 +1,123 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.dto.StockMovementDTO;
+import com.dio.bookstore.entity.StockMovement;
+import com.dio.bookstore.entity.StockSnapshot;
+import com.dio.bookstore.enums.BookChangeType;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockJournalJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movement (id, book_id, type, delta, quantity, recorded_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO stock_snapshot (id, covers_until) VALUES (?, ?)";
+
+    private static final String INSERT_SNAPSHOT_ENTRY_SQL =
+            "INSERT INTO stock_snapshot_entry (snapshot_id, book_id, quantity) VALUES (?, ?, ?)";
+
+    private static final String LATEST_SNAPSHOT_SQL =
+            "SELECT id, covers_until FROM stock_snapshot WHERE covers_until <= ? ORDER BY id DESC LIMIT 1";
+
+    private static final String SNAPSHOT_ENTRIES_SQL =
+            "SELECT book_id, quantity FROM stock_snapshot_entry WHERE snapshot_id = ?";
+
+    private static final String MOVEMENT_TOTALS_SQL =
+            "SELECT book_id, SUM(CASE WHEN type = 'DELETED' THEN 0 ELSE delta END), MAX(CASE WHEN type = 'DELETED' THEN 1 ELSE 0 END)"
+                    + " FROM stock_movement WHERE id > ? AND id <= ? AND recorded_at <= ?";
+
+    private static final String MOVEMENTS_SQL =
+            "SELECT id, book_id, type, delta, quantity, recorded_at FROM stock_movement WHERE book_id = ? AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String BOOK_FILTER = " AND book_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertMovements(List<StockMovement> movements) {
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, movements, BATCH_SIZE, (ps, movement) -> {
+            ps.setLong(1, movement.getId());
+            ps.setLong(2, movement.getBookId());
+            ps.setString(3, movement.getType().name());
+            ps.setInt(4, movement.getDelta());
+            ps.setInt(5, movement.getQuantity());
+            ps.setTimestamp(6, Timestamp.from(movement.getRecordedAt()));
+        });
+    }
+
+    public long findLastMovementId() {
+        Long lastId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM stock_movement", Long.class);
+        return lastId == null ? 0L : lastId;
+    }
+
+    public Optional<Instant> findRecordedAt(long movementId) {
+        return jdbcTemplate.query("SELECT recorded_at FROM stock_movement WHERE id = ?",
+                (rs, rowNum) -> rs.getTimestamp(1).toInstant(), movementId).stream().findFirst();
+    }
+
+    public void insertSnapshot(StockSnapshot snapshot, Map<Long, Integer> quantities) {
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_ENTRY_SQL, quantities.entrySet(), BATCH_SIZE, (ps, entry) -> {
+            ps.setLong(1, snapshot.getId());
+            ps.setLong(2, entry.getKey());
+            ps.setInt(3, entry.getValue());
+        });
+        jdbcTemplate.update(INSERT_SNAPSHOT_SQL, snapshot.getId(), Timestamp.from(snapshot.getCoversUntil()));
+    }
+
+    public Optional<StockSnapshot> findLatestSnapshot(Instant at) {
+        return jdbcTemplate.query(LATEST_SNAPSHOT_SQL,
+                (rs, rowNum) -> new StockSnapshot(rs.getLong(1), rs.getTimestamp(2).toInstant()),
+                Timestamp.from(at)).stream().findFirst();
+    }
+
+    public void readSnapshotEntries(long snapshotId, Long bookId, QuantitySink sink) {
+        String sql = bookId == null ? SNAPSHOT_ENTRIES_SQL : SNAPSHOT_ENTRIES_SQL + BOOK_FILTER;
+        Object[] args = bookId == null ? new Object[]{snapshotId} : new Object[]{snapshotId, bookId};
+        jdbcTemplate.query(sql, rs -> {
+            sink.accept(rs.getLong(1), rs.getInt(2), false);
+        }, args);
+    }
+
+    /**
+     * Sums the deltas of each book over the movements after {@code afterId} up to
+     * {@code untilId} that were recorded at or before {@code at}, flagging deleted books.
+     */
+    public void readMovementTotals(long afterId, long untilId, Instant at, Long bookId, QuantitySink sink) {
+        String sql = (bookId == null ? MOVEMENT_TOTALS_SQL : MOVEMENT_TOTALS_SQL + BOOK_FILTER) + " GROUP BY book_id";
+        Object[] args = bookId == null
+                ? new Object[]{afterId, untilId, Timestamp.from(at)}
+                : new Object[]{afterId, untilId, Timestamp.from(at), bookId};
+        jdbcTemplate.query(sql, rs -> {
+            sink.accept(rs.getLong(1), rs.getInt(2), rs.getInt(3) == 1);
+        }, args);
+    }
+
+    public List<StockMovementDTO> findMovements(long bookId, long afterId, int limit) {
+        return jdbcTemplate.query(MOVEMENTS_SQL, (rs, rowNum) -> new StockMovementDTO(
+                rs.getLong(1),
+                rs.getLong(2),
+                BookChangeType.valueOf(rs.getString(3)),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getTimestamp(6).toInstant()), bookId, afterId, limit);
+    }
+
+    @FunctionalInterface
+    public interface QuantitySink {
+
+        void accept(long bookId, int quantity, boolean deleted);
+    }
+}
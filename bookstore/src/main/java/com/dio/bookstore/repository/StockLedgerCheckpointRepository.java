@@ -0,0 +1,14 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.entity.StockLedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface StockLedgerCheckpointRepository extends JpaRepository<StockLedgerCheckpoint, Long> {
+
+    @Modifying
+    @Query("update StockLedgerCheckpoint c set c.lastSequence = :lastSequence where c.id = :id")
+    int updateLastSequence(@Param("id") Long id, @Param("lastSequence") long lastSequence);
+}
@@ -0,0 +1,215 @@
+package com.dio.bookstore.search;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Component
+public class BookSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final int TITLE_EXACT_SCORE = 4;
+    private static final int TITLE_PREFIX_SCORE = 3;
+    private static final int AUTHOR_EXACT_SCORE = 2;
+    private static final int AUTHOR_PREFIX_SCORE = 1;
+    private static final int TITLE_STARTS_WITH_QUERY_SCORE = 5;
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> titleTokens = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> authorTokens = new TreeMap<>();
+    private final Set<Long> deletedIds = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the books read at startup. A book already indexed by a change event is kept,
+     * and a book deleted in the meantime stays out.
+     */
+    public void load(Collection<BookDTO> books) {
+        lock.writeLock().lock();
+        try {
+            books.forEach(bookDTO -> {
+                if (!documents.containsKey(bookDTO.getId()) && !deletedIds.contains(bookDTO.getId())) {
+                    addDocument(bookDTO);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Only the title and author are indexed, and neither changes after a book is created, so stock
+     * changes are ignored. Deleted ids are kept as tombstones: events may arrive out of order, and a
+     * late event for a deleted book must not bring it back.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == BookChangeType.DELETED) {
+            remove(event.getBook().getId());
+        } else if (event.getType() == BookChangeType.CREATED) {
+            index(event.getBook());
+        }
+    }
+
+    public void index(BookDTO bookDTO) {
+        lock.writeLock().lock();
+        try {
+            if (!deletedIds.contains(bookDTO.getId())) {
+                removeDocument(bookDTO.getId());
+                addDocument(bookDTO);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            deletedIds.add(id);
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matches, best first. The index keeps no stock, so callers
+     * resolve the ids to the live books.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalizedQuery = String.join(" ", queryTokens);
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Integer> tokenScores = new HashMap<>();
+                collectScores(titleTokens, queryToken, TITLE_EXACT_SCORE, TITLE_PREFIX_SCORE, tokenScores);
+                collectScores(authorTokens, queryToken, AUTHOR_EXACT_SCORE, AUTHOR_PREFIX_SCORE, tokenScores);
+                scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            scores.replaceAll((id, score) -> documents.get(id).normalizedTitle.startsWith(normalizedQuery)
+                    ? score + TITLE_STARTS_WITH_QUERY_SCORE
+                    : score);
+            Map<Long, Integer> finalScores = scores;
+            Comparator<Long> ranking = Comparator.<Long>comparingInt(finalScores::get)
+                    .reversed()
+                    .thenComparingInt(id -> documents.get(id).title.length())
+                    .thenComparing(Comparator.naturalOrder());
+            return finalScores.keySet()
+                    .stream()
+                    .sorted(ranking)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectScores(NavigableMap<String, Set<Long>> tokens, String queryToken, int exactScore, int prefixScore, Map<Long, Integer> scores) {
+        tokens.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).forEach((token, ids) -> {
+            int score = token.equals(queryToken) ? exactScore : prefixScore;
+            ids.forEach(id -> scores.merge(id, score, Math::max));
+        });
+    }
+
+    private Map<Long, Integer> intersect(Map<Long, Integer> scores, Map<Long, Integer> tokenScores) {
+        Map<Long, Integer> intersection = new HashMap<>();
+        scores.forEach((id, score) -> {
+            Integer tokenScore = tokenScores.get(id);
+            if (tokenScore != null) {
+                intersection.put(id, score + tokenScore);
+            }
+        });
+        return intersection;
+    }
+
+    private void addDocument(BookDTO bookDTO) {
+        List<String> documentTitleTokens = tokenize(bookDTO.getTitle());
+        documents.put(bookDTO.getId(), new Document(bookDTO.getTitle(), bookDTO.getAuthor(), String.join(" ", documentTitleTokens)));
+        documentTitleTokens.forEach(token -> titleTokens.computeIfAbsent(token, key -> new HashSet<>()).add(bookDTO.getId()));
+        tokenize(bookDTO.getAuthor()).forEach(token -> authorTokens.computeIfAbsent(token, key -> new HashSet<>()).add(bookDTO.getId()));
+    }
+
+    private void removeDocument(Long id) {
+        Document previous = documents.remove(id);
+        if (previous != null) {
+            removeTokens(titleTokens, tokenize(previous.title), id);
+            removeTokens(authorTokens, tokenize(previous.author), id);
+        }
+    }
+
+    private void removeTokens(NavigableMap<String, Set<Long>> tokens, List<String> documentTokens, Long id) {
+        documentTokens.forEach(token -> {
+            Set<Long> ids = tokens.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                tokens.remove(token);
+            }
+        });
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(TOKEN_SEPARATOR.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static final class Document {
+        private final String title;
+        private final String author;
+        private final String normalizedTitle;
+
+        private Document(String title, String author, String normalizedTitle) {
+            this.title = title;
+            this.author = author;
+            this.normalizedTitle = normalizedTitle;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.dto.BookImportProgressDTO;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface BookImportListener {
+
+    void onProgress(BookImportProgressDTO progress) throws IOException;
+}
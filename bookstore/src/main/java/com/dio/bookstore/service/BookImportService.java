@@ -0,0 +1,240 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.BookImportErrorDTO;
+import com.dio.bookstore.dto.BookImportProgressDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.enums.ImportFormat;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.store.BookStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a catalog file into the {@link BookStore} chunk by chunk. CSV records are read by
+ * Jackson's streaming CSV parser against the header row, so quoted fields may hold commas,
+ * quotes and line breaks; NDJSON lines of a chunk are parsed in parallel. Rows are validated
+ * in parallel, titles already registered are found with one lookup per chunk and the
+ * remaining books are inserted together.
+ */
+@Service
+public class BookImportService {
+
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(BookDTO.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final BookStore bookStore;
+    private final Validator validator;
+    private final ObjectReader jsonReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final BookMapper bookMapper = BookMapper.INSTANCE;
+
+    public BookImportService(BookStore bookStore,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${bookstore.import.chunk-size:1000}") int chunkSize) {
+        this.bookStore = bookStore;
+        this.validator = validator;
+        this.jsonReader = objectMapper.readerFor(BookDTO.class);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public BookImportProgressDTO importBooks(InputStream input, ImportFormat format, BookImportListener listener) throws IOException {
+        BookImportProgressDTO progress = new BookImportProgressDTO(0, 0, 0, 0, false, Collections.emptyList());
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        RowSource rows = format == ImportFormat.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        for (ImportRow row = rows.next(); row != null; row = rows.next()) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, progress, listener);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress, listener);
+        }
+
+        progress.setDone(true);
+        listener.onProgress(progress);
+        return progress;
+    }
+
+    private void importChunk(List<ImportRow> chunk, BookImportProgressDTO progress, BookImportListener listener) throws IOException {
+        chunk.parallelStream().forEach(this::parseAndValidate);
+
+        Map<String, ImportRow> rowsByTitle = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null && rowsByTitle.putIfAbsent(row.book.getTitle(), row) != null) {
+                row.error = "Duplicated title in the imported file.";
+                row.duplicate = true;
+            }
+        }
+        Set<String> existingTitles = bookStore.findByTitleIn(rowsByTitle.keySet()).stream()
+                .map(Book::getTitle)
+                .collect(Collectors.toSet());
+        List<ImportRow> rowsToInsert = new ArrayList<>(rowsByTitle.size());
+        for (ImportRow row : rowsByTitle.values()) {
+            if (existingTitles.contains(row.book.getTitle())) {
+                row.error = String.format("Book with title %s already registered in the system.", row.book.getTitle());
+                row.duplicate = true;
+            } else {
+                rowsToInsert.add(row);
+            }
+        }
+        List<Book> insertedBooks = insert(rowsToInsert);
+
+        List<BookImportErrorDTO> errors = new ArrayList<>();
+        long duplicates = 0;
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                errors.add(new BookImportErrorDTO(row.lineNumber, row.book == null ? null : row.book.getTitle(), row.error));
+                duplicates += row.duplicate ? 1 : 0;
+            }
+        }
+        errors.sort(Comparator.comparingLong(BookImportErrorDTO::getLine));
+        progress.setProcessed(progress.getProcessed() + chunk.size());
+        progress.setImported(progress.getImported() + insertedBooks.size());
+        progress.setDuplicates(progress.getDuplicates() + duplicates);
+        progress.setFailed(progress.getFailed() + errors.size() - duplicates);
+
+        insertedBooks.forEach(book -> eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.CREATED, bookMapper.toDTO(book))));
+        listener.onProgress(new BookImportProgressDTO(progress.getProcessed(), progress.getImported(),
+                progress.getDuplicates(), progress.getFailed(), false, errors));
+    }
+
+    private void parseAndValidate(ImportRow row) {
+        if (row.text != null) {
+            try {
+                row.book = jsonReader.readValue(row.text);
+            } catch (JsonProcessingException e) {
+                row.error = "Malformed row: " + e.getOriginalMessage();
+            }
+        }
+        if (row.error != null) {
+            return;
+        }
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(row.book);
+        if (!violations.isEmpty()) {
+            row.error = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+    private List<Book> insert(List<ImportRow> rows) {
+        List<Book> books = new ArrayList<>(rows.size());
+        rows.forEach(row -> books.add(bookMapper.toModel(row.book)));
+        List<Book> insertedBooks = bookStore.insertAll(books);
+        if (insertedBooks.size() < books.size()) {
+            for (int i = 0; i < books.size(); i++) {
+                if (books.get(i).getId() == null) {
+                    rows.get(i).error = String.format("Book with title %s already registered in the system.", books.get(i).getTitle());
+                    rows.get(i).duplicate = true;
+                }
+            }
+        }
+        return insertedBooks;
+    }
+
+    private interface RowSource {
+
+        /**
+         * @return the next row, or {@code null} at the end of the file
+         */
+        ImportRow next() throws IOException;
+    }
+
+    private static final class NdjsonRows implements RowSource {
+        private final BufferedReader lines;
+        private long lineNumber;
+
+        private NdjsonRows(Reader reader) {
+            this.lines = new BufferedReader(reader);
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    return new ImportRow(lineNumber, line);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class CsvRows implements RowSource {
+        private final MappingIterator<BookDTO> records;
+
+        private CsvRows(Reader reader) throws IOException {
+            this.records = CSV_READER.readValues(reader);
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (!records.hasNextValue()) {
+                return null;
+            }
+            ImportRow row = new ImportRow(records.getCurrentLocation().getLineNr(), null);
+            try {
+                row.book = records.nextValue();
+            } catch (JsonProcessingException e) {
+                // the iterator skips the rest of the record, so reading continues with the next one
+                row.error = "Malformed row: " + e.getOriginalMessage();
+            }
+            return row;
+        }
+    }
+
+    private static final class ImportRow {
+        private final long lineNumber;
+        private final String text;
+        private volatile BookDTO book;
+        private volatile String error;
+        private boolean duplicate;
+
+        private ImportRow(long lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+    }
+}
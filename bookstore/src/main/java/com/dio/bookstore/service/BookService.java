@@ -1,86 +1,260 @@
 package com.dio.bookstore.service;
 
+import com.dio.bookstore.cache.BookTitleCache;
+import com.dio.bookstore.dto.BatchGetItemDTO;
+import com.dio.bookstore.dto.BatchGetResultDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentResultDTO;
 import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.dto.StockAdjustmentResultDTO;
 import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BatchMode;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.enums.StockAdjustmentStatus;
+import com.dio.bookstore.event.BookChangedEvent;
 import com.dio.bookstore.exceptions.BookAlreadyRegisteredException;
 import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
 import com.dio.bookstore.exceptions.BookStockExceededException;
 import com.dio.bookstore.mapper.BookMapper;
-import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.search.BookSearchIndex;
+import com.dio.bookstore.store.BookStore;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class BookService {
-    private final BookRepository bookRepository;
+    public static final int MAX_PAGE_LIMIT = 1000;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final int BATCH_GET_CHUNK_SIZE = 500;
+
+    private final BookStore bookStore;
+    private final BookTitleCache bookTitleCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockUpdater stockUpdater;
     private final BookMapper bookMapper = BookMapper.INSTANCE;
 
     public BookDTO createBook(BookDTO bookDTO) throws BookAlreadyRegisteredException {
         verifyIfIsAlreadyRegistered(bookDTO.getTitle());
         Book book = bookMapper.toModel(bookDTO);
-        Book savedBook = bookRepository.save(book);
-        return bookMapper.toDTO(savedBook);
+        Book savedBook = bookStore.save(book);
+        return publishChange(BookChangeType.CREATED, bookMapper.toDTO(savedBook));
     }
 
     public BookDTO findByTitle(String title) throws BookNotFoundException {
-        Book foundBook = bookRepository.findByTitle(title)
-                .orElseThrow(() -> new BookNotFoundException(title));
-        return bookMapper.toDTO(foundBook);
+        BookDTO foundBookDTO = bookTitleCache.get(title, this::loadByTitle);
+        if (foundBookDTO == null) {
+            throw new BookNotFoundException(title);
+        }
+        return foundBookDTO;
+    }
+
+    private BookDTO loadByTitle(String title) {
+        return bookStore.findByTitle(title)
+                .map(bookMapper::toDTO)
+                .orElse(null);
+    }
+
+    /**
+     * Resolves many books with one {@code IN} query per chunk of ids and of titles. Results
+     * follow the request order, ids first, and a book that does not exist is marked as not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchGetResultDTO batchGet(List<Long> ids, List<String> titles) {
+        Map<Long, BookDTO> booksById = new HashMap<>();
+        forEachChunk(ids, chunk -> bookStore.findAllById(chunk)
+                .forEach(book -> booksById.put(book.getId(), bookMapper.toDTO(book))));
+        Map<String, BookDTO> booksByTitle = new HashMap<>();
+        forEachChunk(titles, chunk -> bookStore.findByTitleIn(chunk)
+                .forEach(book -> booksByTitle.put(book.getTitle(), bookMapper.toDTO(book))));
+
+        List<BatchGetItemDTO> results = new ArrayList<>(ids.size() + titles.size());
+        ids.forEach(id -> results.add(new BatchGetItemDTO(id, null, booksById.containsKey(id), booksById.get(id))));
+        titles.forEach(title -> results.add(new BatchGetItemDTO(null, title, booksByTitle.containsKey(title), booksByTitle.get(title))));
+        return new BatchGetResultDTO(results);
+    }
+
+    private static <T> void forEachChunk(List<T> keys, Consumer<Set<T>> query) {
+        List<T> distinctKeys = keys.stream().distinct().collect(Collectors.toList());
+        for (int from = 0; from < distinctKeys.size(); from += BATCH_GET_CHUNK_SIZE) {
+            query.accept(new HashSet<>(distinctKeys.subList(from, Math.min(distinctKeys.size(), from + BATCH_GET_CHUNK_SIZE))));
+        }
+    }
+
+    /**
+     * The book with its live stock, as the next adjustment would see it, which in ledger mode
+     * may be ahead of what the listings read.
+     */
+    public Optional<BookDTO> findCurrent(Long id) {
+        return bookStore.findById(id)
+                .map(stockUpdater::current)
+                .map(bookMapper::toDTO);
     }
 
     public List<BookDTO> listAll() {
-        return bookRepository.findAll()
+        return bookStore.findAll()
+                .stream()
+                .map(bookMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    public List<BookDTO> listPage(String author, BookType genre, Long after, int limit) {
+        long lastSeenId = after == null ? 0L : after;
+        return bookStore.findPage(author, genre, lastSeenId, Math.min(Math.max(limit, 1), MAX_PAGE_LIMIT))
+                .stream()
+                .map(bookMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ranks with the index and reads the matches from the store, so results carry the live stock
+     * and leave out books deleted after they were indexed.
+     */
+    public List<BookDTO> search(String query, int limit) {
+        List<Long> ids = bookSearchIndex.search(query, Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Book> books = bookStore.findAllById(ids)
                 .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(stockUpdater::current)
                 .map(bookMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    public void streamAll(Consumer<BookDTO> consumer) {
+        bookStore.forEachOrderedById(book -> consumer.accept(bookMapper.toDTO(book)));
+    }
+
+    /**
+     * Streams the books matching the filters in id order, reading them in keyset pages of
+     * {@link #MAX_PAGE_LIMIT}; a null {@code limit} streams every match.
+     */
+    public void streamPage(String author, BookType genre, Long after, Integer limit, Consumer<BookDTO> consumer) {
+        long lastSeenId = after == null ? 0L : after;
+        long remaining = limit == null ? Long.MAX_VALUE : Math.max(limit, 1);
+        while (remaining > 0) {
+            int pageSize = (int) Math.min(remaining, MAX_PAGE_LIMIT);
+            List<Book> page = bookStore.findPage(author, genre, lastSeenId, pageSize);
+            page.forEach(book -> consumer.accept(bookMapper.toDTO(book)));
+            if (page.size() < pageSize) {
+                return;
+            }
+            lastSeenId = page.get(page.size() - 1).getId();
+            remaining -= page.size();
+        }
+    }
+
     public void deleteById(Long id) throws BookNotFoundException {
-        verifyIfExists(id);
-        bookRepository.deleteById(id);
+        Book bookToDelete = verifyIfExists(id);
+        bookStore.deleteById(id);
+        publishChange(BookChangeType.DELETED, bookMapper.toDTO(bookToDelete));
+    }
+
+    private BookDTO publishChange(BookChangeType changeType, BookDTO bookDTO) {
+        eventPublisher.publishEvent(new BookChangedEvent(changeType, bookDTO));
+        return bookDTO;
+    }
+
+    private BookDTO publishStockChange(BookDTO bookDTO, int delta) {
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.STOCK_CHANGED, bookDTO, delta));
+        return bookDTO;
     }
 
     private void verifyIfIsAlreadyRegistered(String title) throws BookAlreadyRegisteredException {
-        Optional<Book> optSavedBook = bookRepository.findByTitle(title);
+        Optional<Book> optSavedBook = bookStore.findByTitle(title);
         if (optSavedBook.isPresent()) {
             throw new BookAlreadyRegisteredException(title);
         }
     }
 
     private Book verifyIfExists(Long id) throws BookNotFoundException {
-        return bookRepository.findById(id)
+        return bookStore.findById(id)
                 .orElseThrow(() -> new BookNotFoundException(id));
     }
 
-    public BookDTO increment(Long id, int quantityToIncrement) throws BookNotFoundException, BookStockExceededException {
-        Book bookToIncrementStock = verifyIfExists(id);
-
-        if(quantityToIncrement + bookToIncrementStock.getQuantity() <= bookToIncrementStock.getMax()){
-
-            bookToIncrementStock.setQuantity(bookToIncrementStock.getQuantity() + quantityToIncrement);
-            Book incrementedBookStock = bookRepository.save(bookToIncrementStock);
-            return bookMapper.toDTO(incrementedBookStock);
-        }
-        throw new BookStockExceededException(id, quantityToIncrement);
+    public BookDTO increment(Long id, int quantityToIncrement) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        Book incrementedBookStock = stockUpdater.adjust(id, quantityToIncrement);
+        return publishStockChange(bookMapper.toDTO(incrementedBookStock), quantityToIncrement);
+    }
 
+    public BookDTO decrement(Long id, int quantityToDecrement) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        Book decrementedBookStock = stockUpdater.adjust(id, -quantityToDecrement);
+        return publishStockChange(bookMapper.toDTO(decrementedBookStock), -quantityToDecrement);
     }
 
-    public BookDTO decrement(Long id, int quantityToDecrement) throws BookNotFoundException, BookStockExceededException {
-        Book bookToDecrementStock = verifyIfExists(id);
+    @Transactional
+    public BatchStockAdjustmentResultDTO adjustStock(BatchStockAdjustmentDTO batchStockAdjustmentDTO) {
+        List<StockAdjustmentDTO> adjustments = batchStockAdjustmentDTO.getAdjustments();
+        Set<Long> ids = adjustments.stream().map(StockAdjustmentDTO::getId).collect(Collectors.toSet());
+        stockUpdater.release(ids);
+        int[] updatedRows = bookStore.adjustQuantities(adjustments, batchStockAdjustmentDTO.getMode() != BatchMode.BEST_EFFORT);
 
-        int bookStockAfterDecremented = bookToDecrementStock.getQuantity() - quantityToDecrement;
+        Map<Long, Book> adjustedBooks = bookStore.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        Map<Long, Integer> runningQuantities = new HashMap<>();
+        adjustedBooks.forEach((id, book) -> runningQuantities.put(id, book.getQuantity()));
+
+        StockAdjustmentResultDTO[] results = new StockAdjustmentResultDTO[adjustments.size()];
+        for (int i = adjustments.size() - 1; i >= 0; i--) {
+            StockAdjustmentDTO adjustment = adjustments.get(i);
+            Long id = adjustment.getId();
+            StockAdjustmentResultDTO result = new StockAdjustmentResultDTO(id, adjustment.getDelta(), StockAdjustmentStatus.APPLIED, runningQuantities.get(id));
+            if (updatedRows[i] > 0) {
+                runningQuantities.computeIfPresent(id, (bookId, quantity) -> quantity - adjustment.getDelta());
+            } else if (adjustedBooks.containsKey(id)) {
+                result.setStatus(StockAdjustmentStatus.STOCK_EXCEEDED);
+            } else {
+                result.setStatus(StockAdjustmentStatus.NOT_FOUND);
+                result.setQuantity(null);
+            }
+            results[i] = result;
+        }
 
-        if ( bookStockAfterDecremented >= 0) {
-            bookToDecrementStock.setQuantity(bookStockAfterDecremented);
-            Book decrementedBookStock = bookRepository.save(bookToDecrementStock);
-            return bookMapper.toDTO(decrementedBookStock);
+        boolean committed = batchStockAdjustmentDTO.getMode() == BatchMode.BEST_EFFORT
+                || Arrays.stream(updatedRows).allMatch(rows -> rows > 0);
+        if (!committed) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            Arrays.stream(results)
+                    .filter(result -> result.getStatus() == StockAdjustmentStatus.APPLIED)
+                    .forEach(result -> {
+                        result.setStatus(StockAdjustmentStatus.ROLLED_BACK);
+                        result.setQuantity(null);
+                    });
+        } else {
+            Map<Long, Integer> appliedDeltas = new LinkedHashMap<>();
+            Arrays.stream(results)
+                    .filter(result -> result.getStatus() == StockAdjustmentStatus.APPLIED)
+                    .forEach(result -> appliedDeltas.merge(result.getId(), result.getDelta(), Integer::sum));
+            appliedDeltas.forEach((id, delta) -> publishStockChange(bookMapper.toDTO(adjustedBooks.get(id)), delta));
         }
-        throw new BookStockExceededException(id, quantityToDecrement);
+        return new BatchStockAdjustmentResultDTO(committed, Arrays.asList(results));
     }
 }
@@ -0,0 +1,27 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.store.BookStore;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Leaves the guarded update to the {@link BookStore}, which applies the delta only while the
+ * quantity stays within bounds.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.stock.concurrency", havingValue = "conditional", matchIfMissing = true)
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ConditionalStockUpdater implements StockUpdater {
+
+    private final BookStore bookStore;
+
+    @Override
+    public Book adjust(Long id, int delta) throws BookNotFoundException, BookStockExceededException {
+        return bookStore.adjustQuantity(id, delta);
+    }
+}
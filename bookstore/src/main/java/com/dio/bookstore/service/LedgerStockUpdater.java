@@ -0,0 +1,322 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.cache.CatalogVersion;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.entity.StockLedgerCheckpoint;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.ledger.StockLedger;
+import com.dio.bookstore.ledger.StockWriteAheadLog;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.repository.BookStockJdbcRepository;
+import com.dio.bookstore.repository.StockLedgerCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves stock changes from a {@link StockLedger} and writes the net deltas to the database
+ * in the background. Every change is in the write-ahead log before it is acknowledged; each
+ * flush stores the deltas together with the last log sequence they cover, in one
+ * transaction, so replaying the log after a crash applies every delta exactly once.
+ *
+ * <p>Listings read from the database may lag the ledger by up to one flush interval; each
+ * flush bumps the {@link CatalogVersion} so cached listings are revalidated.
+ *
+ * <p>A delta the database cannot take without leaving the stock bounds, because the stock
+ * was changed there behind the ledger, is dropped and counted in
+ * {@code bookstore.stock.ledger.dropped.deltas}; the book is resynced from the database and
+ * the rest of the flush goes through.
+ *
+ * <p>Books handed to {@link #release(Collection)} are fenced until the surrounding transaction
+ * completes: a change to one of them waits before reading its stock back from the database,
+ * so the ledger is never seeded with a quantity the releasing transaction is about to change.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.stock.concurrency", havingValue = "ledger")
+public class LedgerStockUpdater implements StockUpdater {
+
+    private static final Long CHECKPOINT_ID = 1L;
+
+    private final BookRepository bookRepository;
+    private final BookStockJdbcRepository bookStockJdbcRepository;
+    private final StockLedgerCheckpointRepository checkpointRepository;
+    private final CatalogVersion catalogVersion;
+    private final TransactionTemplate flushTransaction;
+    private final StockWriteAheadLog writeAheadLog;
+    private final StockLedger ledger;
+    private final ConcurrentMap<Long, Book> books = new ConcurrentHashMap<>();
+    private final Object fence = new Object();
+    private final Map<Long, Integer> releasedIds = new HashMap<>();
+    private final Map<Long, Integer> loadingIds = new HashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-ledger-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Duration flushInterval;
+    private final Counter flushedRows;
+    private final Counter droppedDeltas;
+
+    private Map<Long, Integer> unflushedDeltas = new HashMap<>();
+    private long lastCheckpoint;
+
+    public LedgerStockUpdater(BookRepository bookRepository,
+                              BookStockJdbcRepository bookStockJdbcRepository,
+                              StockLedgerCheckpointRepository checkpointRepository,
+                              CatalogVersion catalogVersion,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${bookstore.stock.ledger.stripes:64}") int stripes,
+                              @Value("${bookstore.stock.ledger.flush-interval:200ms}") Duration flushInterval,
+                              @Value("${bookstore.stock.ledger.wal.directory:data/stock-wal}") String walDirectory,
+                              @Value("${bookstore.stock.ledger.wal.fsync:true}") boolean fsync) {
+        this.bookRepository = bookRepository;
+        this.bookStockJdbcRepository = bookStockJdbcRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.catalogVersion = catalogVersion;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.writeAheadLog = new StockWriteAheadLog(Paths.get(walDirectory), fsync);
+        this.ledger = new StockLedger(stripes, writeAheadLog);
+        this.flushInterval = flushInterval;
+        this.flushedRows = meterRegistry.counter("bookstore.stock.ledger.flushed.rows");
+        this.droppedDeltas = meterRegistry.counter("bookstore.stock.ledger.dropped.deltas");
+        meterRegistry.gauge("bookstore.stock.ledger.entries", ledger, StockLedger::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        recover();
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+        flush();
+        writeAheadLog.close();
+    }
+
+    @Override
+    public Book adjust(Long id, int delta) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        int quantity = ledger.adjust(id, delta);
+        while (quantity == StockLedger.NOT_LOADED) {
+            load(id);
+            quantity = ledger.adjust(id, delta);
+        }
+        if (quantity == StockLedger.EXCEEDED) {
+            throw new BookStockExceededException(id, Math.abs(delta));
+        }
+
+        Book book = books.get(id);
+        if (book == null) {
+            book = bookRepository.findById(id).orElseThrow(() -> new BookNotFoundException(id));
+        }
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getMax(), quantity, book.getGenre(), book.getVersion());
+    }
+
+    /**
+     * Overlays the ledger quantity, which may be ahead of the database by one flush.
+     */
+    @Override
+    public Book current(Book stored) {
+        int quantity = ledger.quantity(stored.getId());
+        if (quantity == StockLedger.NOT_LOADED) {
+            return stored;
+        }
+        return new Book(stored.getId(), stored.getTitle(), stored.getAuthor(), stored.getMax(), quantity, stored.getGenre(), stored.getVersion());
+    }
+
+    @Override
+    public void release(Collection<Long> ids) {
+        synchronized (fence) {
+            while (ids.stream().anyMatch(loadingIds::containsKey)) {
+                awaitFence();
+            }
+            ids.forEach(id -> releasedIds.merge(id, 1, Integer::sum));
+        }
+        try {
+            flush(ids.stream().mapToLong(Long::longValue).toArray());
+            ids.forEach(books::remove);
+        } catch (RuntimeException e) {
+            lift(ids);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lift(ids);
+                }
+            });
+        } else {
+            lift(ids);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == BookChangeType.DELETED) {
+            ledger.remove(event.getBook().getId());
+            books.remove(event.getBook().getId());
+        }
+    }
+
+    public void flush() {
+        flush(new long[0]);
+    }
+
+    private void load(Long id) throws BookNotFoundException, BookStockConflictException {
+        synchronized (fence) {
+            while (releasedIds.containsKey(id)) {
+                try {
+                    fence.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BookStockConflictException(id, 1);
+                }
+            }
+            loadingIds.merge(id, 1, Integer::sum);
+        }
+        try {
+            seed(id);
+        } finally {
+            synchronized (fence) {
+                loadingIds.computeIfPresent(id, (loadingId, loads) -> loads > 1 ? loads - 1 : null);
+                fence.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Seeds the ledger with the stored stock plus any delta a failed flush drained but could not
+     * write, which is otherwise in neither; holding the flush lock keeps the two consistent.
+     */
+    private synchronized void seed(Long id) throws BookNotFoundException {
+        Book book = bookRepository.findById(id).orElseThrow(() -> new BookNotFoundException(id));
+        books.putIfAbsent(id, book);
+        ledger.load(id, book.getQuantity() + unflushedDeltas.getOrDefault(id, 0), book.getMax());
+    }
+
+    private void awaitFence() {
+        try {
+            fence.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stock of the released books to be loaded", e);
+        }
+    }
+
+    private void lift(Collection<Long> ids) {
+        synchronized (fence) {
+            ids.forEach(id -> releasedIds.computeIfPresent(id, (releasedId, releases) -> releases > 1 ? releases - 1 : null));
+            fence.notifyAll();
+        }
+    }
+
+    private synchronized void flush(long[] evictedIds) {
+        Map<Long, Integer> deltas = unflushedDeltas;
+        long checkpoint = ledger.drain((id, delta) -> deltas.merge(id, delta, Integer::sum), evictedIds);
+        if (checkpoint == lastCheckpoint && deltas.isEmpty()) {
+            return;
+        }
+        persist(deltas, checkpoint);
+        unflushedDeltas = new HashMap<>();
+        lastCheckpoint = checkpoint;
+        writeAheadLog.truncate(checkpoint);
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Stock ledger flush failed, the deltas are kept for the next attempt", e);
+        }
+    }
+
+    private void recover() {
+        Optional<StockLedgerCheckpoint> storedCheckpoint = checkpointRepository.findById(CHECKPOINT_ID);
+        long checkpoint = 0L;
+        if (storedCheckpoint.isPresent()) {
+            checkpoint = storedCheckpoint.get().getLastSequence();
+            Map<Long, Integer> recoveredDeltas = new HashMap<>();
+            long highestSequence = writeAheadLog.replay(checkpoint, (id, delta) -> recoveredDeltas.merge(id, delta, Integer::sum));
+            if (highestSequence > checkpoint) {
+                persist(recoveredDeltas, highestSequence);
+                log.info("Stock ledger replayed log records {} to {} for {} books", checkpoint + 1, highestSequence, recoveredDeltas.size());
+                checkpoint = highestSequence;
+            }
+        } else {
+            writeAheadLog.discard();
+            checkpointRepository.save(new StockLedgerCheckpoint(CHECKPOINT_ID, checkpoint));
+        }
+        writeAheadLog.open(checkpoint);
+        writeAheadLog.truncate(checkpoint);
+        lastCheckpoint = checkpoint;
+    }
+
+    private void persist(Map<Long, Integer> deltas, long checkpoint) {
+        long[] ids = new long[deltas.size()];
+        int[] netDeltas = new int[deltas.size()];
+        int count = 0;
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0) {
+                ids[count] = delta.getKey();
+                netDeltas[count] = delta.getValue();
+                count++;
+            }
+        }
+        int rows = count;
+        Map<Long, Book> resynced = new HashMap<>();
+        flushTransaction.executeWithoutResult(status -> {
+            resynced.clear();
+            int[] updatedRows = bookStockJdbcRepository.addQuantities(ids, netDeltas, rows);
+            for (int i = 0; i < rows; i++) {
+                // a deleted book takes its deltas with it; an existing one that would leave its bounds loses its delta
+                if (updatedRows[i] == 0) {
+                    int rejectedDelta = netDeltas[i];
+                    bookRepository.findById(ids[i]).ifPresent(book -> {
+                        log.error("Stock delta {} of book {} breaks its bounds in the database at quantity {} of {}, it is dropped and the book resynced",
+                                rejectedDelta, book.getId(), book.getQuantity(), book.getMax());
+                        resynced.put(book.getId(), book);
+                    });
+                }
+            }
+            checkpointRepository.updateLastSequence(CHECKPOINT_ID, checkpoint);
+        });
+        resynced.values().forEach(book -> ledger.resync(book.getId(), book.getQuantity(), book.getMax()));
+        droppedDeltas.increment(resynced.size());
+        flushedRows.increment(rows - resynced.size());
+        catalogVersion.bump();
+    }
+}
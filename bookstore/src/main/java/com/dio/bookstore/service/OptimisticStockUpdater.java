@@ -0,0 +1,109 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads the book, checks the bounds in memory and lets the {@code @Version} column
+ * reject the write when another transaction got there first. Conflicting attempts are
+ * retried in a fresh transaction after a jittered exponential backoff.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.stock.concurrency", havingValue = "optimistic")
+public class OptimisticStockUpdater implements StockUpdater {
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public OptimisticStockUpdater(BookRepository bookRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${bookstore.stock.optimistic.max-attempts:5}") int maxAttempts,
+                                  @Value("${bookstore.stock.optimistic.initial-backoff:5ms}") Duration initialBackoff,
+                                  @Value("${bookstore.stock.optimistic.max-backoff:100ms}") Duration maxBackoff) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.conflicts = meterRegistry.counter("bookstore.stock.optimistic.conflicts");
+        this.retries = meterRegistry.counter("bookstore.stock.optimistic.retries");
+        this.exhausted = meterRegistry.counter("bookstore.stock.optimistic.exhausted");
+    }
+
+    @Override
+    public Book adjust(Long id, int delta) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        for (int attempt = 1; ; attempt++) {
+            Attempt result;
+            try {
+                result = transactionTemplate.execute(status -> tryAdjust(id, delta));
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw new BookStockConflictException(id, attempt);
+                }
+                retries.increment();
+                backOff(id, attempt);
+                continue;
+            }
+
+            if (result.book == null) {
+                throw new BookNotFoundException(id);
+            }
+            if (!result.applied) {
+                throw new BookStockExceededException(id, Math.abs(delta));
+            }
+            return result.book;
+        }
+    }
+
+    private Attempt tryAdjust(Long id, int delta) {
+        Book book = bookRepository.findById(id).orElse(null);
+        if (book == null || !StockUpdater.fitsStock(book, delta)) {
+            return new Attempt(book, false);
+        }
+        book.setQuantity(book.getQuantity() + delta);
+        return new Attempt(book, true);
+    }
+
+    private void backOff(Long id, int attempt) throws BookStockConflictException {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookStockConflictException(id, attempt);
+        }
+    }
+
+    private static final class Attempt {
+        private final Book book;
+        private final boolean applied;
+
+        private Attempt(Book book, boolean applied) {
+            this.book = book;
+            this.applied = applied;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.repository.BookRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@ConditionalOnProperty(name = "bookstore.stock.concurrency", havingValue = "pessimistic")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class PessimisticStockUpdater implements StockUpdater {
+
+    private final BookRepository bookRepository;
+
+    @Override
+    @Transactional
+    public Book adjust(Long id, int delta) throws BookNotFoundException, BookStockExceededException {
+        Book book = bookRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new BookNotFoundException(id));
+        if (!StockUpdater.fitsStock(book, delta)) {
+            throw new BookStockExceededException(id, Math.abs(delta));
+        }
+        book.setQuantity(book.getQuantity() + delta);
+        return book;
+    }
+}
@@ -0,0 +1,276 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.dto.StockHoldDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.entity.StockHold;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.exceptions.StockHoldNotFoundException;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.StockHoldRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited holds on book stock for checkout. Placing a hold takes the quantity out of
+ * stock through the {@link StockUpdater}, so the guarded update that protects decrements
+ * also checks the hold against what is still available. Committing keeps the stock taken;
+ * releasing or expiring gives it back.
+ *
+ * <p>Active holds live in memory, ordered by deadline in a {@link DelayQueue}. A single
+ * thread wakes when the earliest hold is due and expires everything due at once, returning
+ * stock with one update per book. A hold is only deleted once its stock is back; when the
+ * update for its book fails, the hold stays active and is tried again after
+ * {@code expiry-retry-delay}. The hold rows are only written and deleted, never polled; they
+ * are read back on startup so holds survive a restart.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private final StockUpdater stockUpdater;
+    private final StockHoldRepository stockHoldRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int expiryBatchSize;
+    private final Duration expiryRetryDelay;
+    private final ConcurrentMap<String, ActiveHold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<ActiveHold> deadlines = new DelayQueue<>();
+    private final ExecutorService expirer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-hold-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter expiredHolds;
+    private final BookMapper bookMapper = BookMapper.INSTANCE;
+
+    public StockReservationService(StockUpdater stockUpdater,
+                                   StockHoldRepository stockHoldRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${bookstore.stock.holds.default-ttl:10m}") Duration defaultTtl,
+                                   @Value("${bookstore.stock.holds.max-ttl:1h}") Duration maxTtl,
+                                   @Value("${bookstore.stock.holds.expiry-batch-size:1000}") int expiryBatchSize,
+                                   @Value("${bookstore.stock.holds.expiry-retry-delay:5s}") Duration expiryRetryDelay) {
+        this.stockUpdater = stockUpdater;
+        this.stockHoldRepository = stockHoldRepository;
+        this.eventPublisher = eventPublisher;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.expiryBatchSize = expiryBatchSize;
+        this.expiryRetryDelay = expiryRetryDelay;
+        this.expiredHolds = meterRegistry.counter("bookstore.stock.holds.expired");
+        meterRegistry.gaugeMapSize("bookstore.stock.holds.active", List.of(), holds);
+    }
+
+    @PostConstruct
+    public void start() {
+        Instant now = Instant.now();
+        for (StockHold hold : stockHoldRepository.findAll()) {
+            track(hold.getId(), hold.getBookId(), hold.getQuantity(), hold.getExpiresAt());
+        }
+        if (!holds.isEmpty()) {
+            long due = holds.values().stream().filter(hold -> !hold.expiresAt.isAfter(now)).count();
+            log.info("Restored {} stock holds, {} of them already due", holds.size(), due);
+        }
+        expirer.execute(this::expireLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        expirer.shutdownNow();
+    }
+
+    public StockHoldDTO hold(Long bookId, int quantity, Duration ttl) throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        Duration effectiveTtl = ttl == null ? defaultTtl : (ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl);
+        Book book = stockUpdater.adjust(bookId, -quantity);
+        StockHold hold = new StockHold(UUID.randomUUID().toString(), bookId, quantity, Instant.now().plus(effectiveTtl));
+        try {
+            stockHoldRepository.save(hold);
+        } catch (RuntimeException e) {
+            stockUpdater.adjust(bookId, quantity);
+            throw e;
+        }
+        track(hold.getId(), bookId, quantity, hold.getExpiresAt());
+        publishChange(book, -quantity);
+        return toDTO(hold);
+    }
+
+    public StockHoldDTO commit(String holdId) throws StockHoldNotFoundException {
+        ActiveHold hold = claim(holdId);
+        try {
+            stockHoldRepository.deleteById(holdId);
+        } catch (RuntimeException e) {
+            holds.put(holdId, hold);
+            throw e;
+        }
+        deadlines.remove(hold);
+        return hold.toDTO();
+    }
+
+    /**
+     * Gives the held units back to the book. The hold is only deleted once the stock is
+     * back; when the update fails the hold stays active, so it can be released again or expire.
+     */
+    public StockHoldDTO release(String holdId) throws StockHoldNotFoundException, BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        ActiveHold hold = claim(holdId);
+        Book book;
+        try {
+            book = stockUpdater.adjust(hold.bookId, hold.quantity);
+        } catch (Exception e) {
+            holds.put(holdId, hold);
+            throw e;
+        }
+        deadlines.remove(hold);
+        stockHoldRepository.deleteById(holdId);
+        publishChange(book, hold.quantity);
+        return hold.toDTO();
+    }
+
+    private ActiveHold claim(String holdId) throws StockHoldNotFoundException {
+        ActiveHold hold = holds.remove(holdId);
+        if (hold == null) {
+            throw new StockHoldNotFoundException(holdId);
+        }
+        return hold;
+    }
+
+    private void track(String id, Long bookId, int quantity, Instant expiresAt) {
+        ActiveHold hold = new ActiveHold(id, bookId, quantity, expiresAt);
+        holds.put(id, hold);
+        deadlines.add(hold);
+    }
+
+    private void expireLoop() {
+        List<ActiveHold> due = new ArrayList<>(expiryBatchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                due.add(deadlines.take());
+                deadlines.drainTo(due, expiryBatchSize - 1);
+                expire(due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Stock hold expiry failed for {} holds", due.size(), e);
+            } finally {
+                due.clear();
+            }
+        }
+    }
+
+    private void expire(List<ActiveHold> due) {
+        Map<Long, List<ActiveHold>> expiredByBook = due.stream()
+                .filter(hold -> holds.remove(hold.id, hold))
+                .collect(Collectors.groupingBy(hold -> hold.bookId));
+        List<String> returned = new ArrayList<>();
+        expiredByBook.forEach((bookId, bookHolds) -> {
+            if (returnStock(bookId, bookHolds.stream().mapToInt(hold -> hold.quantity).sum())) {
+                bookHolds.forEach(hold -> returned.add(hold.id));
+            } else {
+                Instant retryAt = Instant.now().plus(expiryRetryDelay);
+                bookHolds.forEach(hold -> {
+                    ActiveHold retried = hold.dueAt(retryAt);
+                    holds.put(hold.id, retried);
+                    deadlines.add(retried);
+                });
+            }
+        });
+        if (returned.isEmpty()) {
+            return;
+        }
+        try {
+            stockHoldRepository.deleteAllByIdInBatch(returned);
+        } catch (RuntimeException e) {
+            log.error("Stock of {} expired holds is back but their rows could not be deleted: {}", returned.size(), returned, e);
+        }
+        expiredHolds.increment(returned.size());
+    }
+
+    /**
+     * @return whether the units are back, or the book is gone and there is nothing to return
+     */
+    private boolean returnStock(Long bookId, int quantity) {
+        try {
+            publishChange(stockUpdater.adjust(bookId, quantity), quantity);
+            return true;
+        } catch (BookNotFoundException e) {
+            log.debug("Book {} was deleted while {} units were on hold", bookId, quantity);
+            return true;
+        } catch (BookStockExceededException | BookStockConflictException | RuntimeException e) {
+            log.warn("Could not return {} expired held units to book {}, retrying in {}", quantity, bookId, expiryRetryDelay, e);
+            return false;
+        }
+    }
+
+    private void publishChange(Book book, int delta) {
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangeType.STOCK_CHANGED, bookMapper.toDTO(book), delta));
+    }
+
+    private static StockHoldDTO toDTO(StockHold hold) {
+        return new StockHoldDTO(hold.getId(), hold.getBookId(), hold.getQuantity(), hold.getExpiresAt());
+    }
+
+    private static final class ActiveHold implements Delayed {
+
+        private final String id;
+        private final Long bookId;
+        private final int quantity;
+        private final Instant expiresAt;
+        private final Instant dueAt;
+
+        ActiveHold(String id, Long bookId, int quantity, Instant expiresAt) {
+            this(id, bookId, quantity, expiresAt, expiresAt);
+        }
+
+        private ActiveHold(String id, Long bookId, int quantity, Instant expiresAt, Instant dueAt) {
+            this.id = id;
+            this.bookId = bookId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+            this.dueAt = dueAt;
+        }
+
+        ActiveHold dueAt(Instant retryAt) {
+            return new ActiveHold(id, bookId, quantity, expiresAt, retryAt);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), dueAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return dueAt.compareTo(((ActiveHold) other).dueAt);
+        }
+
+        StockHoldDTO toDTO() {
+            return new StockHoldDTO(id, bookId, quantity, expiresAt);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+
+import java.util.Collection;
+
+/**
+ * Applies a signed stock delta to a book, keeping its quantity between zero and max.
+ * The implementation is chosen per deployment with {@code bookstore.stock.concurrency}.
+ */
+public interface StockUpdater {
+
+    Book adjust(Long id, int delta) throws BookNotFoundException, BookStockExceededException, BookStockConflictException;
+
+    /**
+     * The stored book with the stock this updater would adjust from, for updaters that keep
+     * stock outside the store; {@code stored} itself when the updater holds none for it.
+     */
+    default Book current(Book stored) {
+        return stored;
+    }
+
+    /**
+     * Called before stock of the given books is written outside this updater, so any state
+     * it keeps for them is persisted and dropped first.
+     */
+    default void release(Collection<Long> ids) {
+    }
+
+    static boolean fitsStock(Book book, int delta) {
+        int adjustedQuantity = book.getQuantity() + delta;
+        return adjustedQuantity >= 0 && adjustedQuantity <= book.getMax();
+    }
+}
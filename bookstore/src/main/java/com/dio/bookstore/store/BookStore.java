@@ -0,0 +1,80 @@
+package com.dio.bookstore.store;
+
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Where books are kept. Titles are unique and ids are assigned by the store. The
+ * implementation is chosen per deployment with {@code bookstore.store}.
+ */
+public interface BookStore {
+
+    /**
+     * Inserts a book without id, or replaces the one with the same id.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException when the title belongs to another book
+     */
+    Book save(Book book);
+
+    /**
+     * Inserts new books, skipping those whose title is already registered.
+     *
+     * @return the inserted books, with their ids
+     */
+    List<Book> insertAll(List<Book> books);
+
+    Optional<Book> findById(Long id);
+
+    Optional<Book> findByTitle(String title);
+
+    List<Book> findAllById(Collection<Long> ids);
+
+    List<Book> findByTitleIn(Collection<String> titles);
+
+    List<Book> findAll();
+
+    /**
+     * Up to {@code limit} books with an id above {@code afterId}, in id order, optionally
+     * restricted to an author and a genre.
+     */
+    List<Book> findPage(String author, BookType genre, long afterId, int limit);
+
+    /**
+     * Hands every book to {@code consumer} in id order without holding them all in memory.
+     */
+    void forEachOrderedById(Consumer<Book> consumer);
+
+    /**
+     * Counts the books together with their highest id and the sum of their versions, to tell
+     * whether a copy of the catalog taken earlier is still current.
+     */
+    CatalogFingerprint fingerprint();
+
+    void deleteById(Long id);
+
+    /**
+     * Applies {@code delta} if the quantity stays between zero and max.
+     *
+     * @return the book with its adjusted quantity
+     */
+    Book adjustQuantity(Long id, int delta) throws BookNotFoundException, BookStockExceededException;
+
+    /**
+     * Applies each adjustment that keeps its book within bounds, in order.
+     *
+     * <p>Runs in the caller's transaction. When {@code atomic} is set and an adjustment
+     * fails, the caller rolls that transaction back; a store that does not take part in it
+     * applies none of the adjustments instead.
+     *
+     * @return per adjustment, 1 when it was applied and 0 otherwise
+     */
+    int[] adjustQuantities(List<StockAdjustmentDTO> adjustments, boolean atomic);
+}
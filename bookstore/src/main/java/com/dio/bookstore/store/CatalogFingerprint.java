@@ -0,0 +1,16 @@
+package com.dio.bookstore.store;
+
+import lombok.Value;
+
+/**
+ * Summary of everything in a {@link BookStore}. New books only ever get higher ids and every
+ * change to a book bumps its version, so the fingerprint changes with any write and two equal
+ * fingerprints describe the same books.
+ */
+@Value
+public class CatalogFingerprint {
+
+    long count;
+    long maxId;
+    long versionSum;
+}
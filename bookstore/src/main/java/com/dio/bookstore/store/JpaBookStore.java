@@ -0,0 +1,182 @@
+package com.dio.bookstore.store;
+
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.repository.BookImportJdbcRepository;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.repository.BookStockJdbcRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps books in the relational {@code book} table through JPA, with JDBC batches for bulk
+ * inserts and stock adjustments.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaBookStore implements BookStore {
+
+    private final BookRepository bookRepository;
+    private final BookStockJdbcRepository bookStockJdbcRepository;
+    private final BookImportJdbcRepository bookImportJdbcRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaBookStore(BookRepository bookRepository,
+                        BookStockJdbcRepository bookStockJdbcRepository,
+                        BookImportJdbcRepository bookImportJdbcRepository,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.bookStockJdbcRepository = bookStockJdbcRepository;
+        this.bookImportJdbcRepository = bookImportJdbcRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Book save(Book book) {
+        return bookRepository.save(book);
+    }
+
+    /**
+     * Writes the books with one JDBC batch using ids reserved from the book sequence. When a
+     * title was registered concurrently the batch is retried one book at a time.
+     */
+    @Override
+    public List<Book> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long[] ids = bookImportJdbcRepository.allocateIds(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).setId(ids[i]);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> bookImportJdbcRepository.insertAll(books));
+            return books;
+        } catch (DuplicateKeyException e) {
+            return insertOneByOne(books);
+        }
+    }
+
+    private List<Book> insertOneByOne(List<Book> books) {
+        List<Book> insertedBooks = new ArrayList<>(books.size());
+        for (Book book : books) {
+            try {
+                bookImportJdbcRepository.insertAll(Collections.singletonList(book));
+                insertedBooks.add(book);
+            } catch (DuplicateKeyException e) {
+                book.setId(null);
+            }
+        }
+        return insertedBooks;
+    }
+
+    @Override
+    public Optional<Book> findById(Long id) {
+        return bookRepository.findById(id);
+    }
+
+    @Override
+    public Optional<Book> findByTitle(String title) {
+        return bookRepository.findByTitle(title);
+    }
+
+    @Override
+    public List<Book> findAllById(Collection<Long> ids) {
+        return bookRepository.findAllById(ids);
+    }
+
+    @Override
+    public List<Book> findByTitleIn(Collection<String> titles) {
+        return bookRepository.findByTitleIn(titles);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return bookRepository.findAll();
+    }
+
+    @Override
+    public List<Book> findPage(String author, BookType genre, long afterId, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (author != null && genre != null) {
+            return bookRepository.findByAuthorAndGenreAndIdGreaterThanOrderByIdAsc(author, genre, afterId, page);
+        } else if (author != null) {
+            return bookRepository.findByAuthorAndIdGreaterThanOrderByIdAsc(author, afterId, page);
+        } else if (genre != null) {
+            return bookRepository.findByGenreAndIdGreaterThanOrderByIdAsc(genre, afterId, page);
+        }
+        return bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachOrderedById(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAllOrderedById()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Override
+    public CatalogFingerprint fingerprint() {
+        Object[] row = (Object[]) entityManager
+                .createQuery("select count(b), max(b.id), sum(b.version) from Book b")
+                .getSingleResult();
+        return new CatalogFingerprint(longValue(row[0]), longValue(row[1]), longValue(row[2]));
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        bookRepository.deleteById(id);
+    }
+
+    @Override
+    @Transactional
+    public Book adjustQuantity(Long id, int delta) throws BookNotFoundException, BookStockExceededException {
+        int updatedRows = delta >= 0
+                ? bookRepository.incrementQuantity(id, delta)
+                : bookRepository.decrementQuantity(id, -delta);
+        if (updatedRows == 0) {
+            verifyIfExists(id);
+            throw new BookStockExceededException(id, Math.abs(delta));
+        }
+        return verifyIfExists(id);
+    }
+
+    @Override
+    public int[] adjustQuantities(List<StockAdjustmentDTO> adjustments, boolean atomic) {
+        return bookStockJdbcRepository.adjustQuantities(adjustments);
+    }
+
+    private Book verifyIfExists(Long id) throws BookNotFoundException {
+        return bookRepository.findById(id)
+                .orElseThrow(() -> new BookNotFoundException(id));
+    }
+
+    private static long longValue(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,379 @@
+package com.dio.bookstore.store;
+
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps books in an embedded H2 MVStore, a copy-on-write B-tree file, without SQL or ORM in
+ * the way. Each book is one compact binary record keyed by id, and a second map indexes
+ * titles to ids, and the last id handed out is kept in a map of its own, so ids of deleted
+ * books are not reused after a restart. Reads never lock; writes to a book take one of a fixed set of lock
+ * stripes, so stock updates to different books rarely contend.
+ *
+ * <p>Changes reach the file in the background every auto-commit delay, so a crash loses at
+ * most that much. Author and genre filters scan in id order; only titles are indexed.
+ * This store only supports the {@code conditional} stock concurrency, since the other
+ * strategies lock or version rows in the relational table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bookstore.store", havingValue = "mvstore")
+public class MvStoreBookStore implements BookStore {
+
+    private static final int MAX_OFFSET = 0;
+    private static final int QUANTITY_OFFSET = MAX_OFFSET + Integer.BYTES;
+    private static final int GENRE_OFFSET = QUANTITY_OFFSET + Integer.BYTES;
+    private static final int VERSION_OFFSET = GENRE_OFFSET + Byte.BYTES;
+    private static final int HEADER_SIZE = VERSION_OFFSET + Long.BYTES;
+    private static final int LOCK_STRIPES = 64;
+    private static final String LAST_ID = "last_id";
+    private static final BookType[] GENRES = BookType.values();
+
+    private final MVStore store;
+    private final MVMap<Long, byte[]> books;
+    private final MVMap<String, Long> titles;
+    private final MVMap<String, Long> counters;
+    private final AtomicLong lastId;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public MvStoreBookStore(@Value("${bookstore.store.mvstore.file:data/books.mv.db}") String file,
+                            @Value("${bookstore.store.mvstore.auto-commit-delay:1s}") Duration autoCommitDelay,
+                            @Value("${bookstore.stock.concurrency:conditional}") String stockConcurrency) {
+        if (!"conditional".equals(stockConcurrency)) {
+            throw new IllegalStateException("bookstore.store=mvstore requires bookstore.stock.concurrency=conditional, not " + stockConcurrency);
+        }
+        MVStore.Builder builder = new MVStore.Builder();
+        if (!file.isEmpty()) {
+            createParentDirectories(Paths.get(file));
+            builder.fileName(file);
+        }
+        this.store = builder.open();
+        this.store.setAutoCommitDelay((int) autoCommitDelay.toMillis());
+        this.books = store.openMap("books");
+        this.titles = store.openMap("book_titles");
+        this.counters = store.openMap("book_counters");
+        Long lastKey = books.lastKey();
+        this.lastId = new AtomicLong(Math.max(counters.getOrDefault(LAST_ID, 0L), lastKey == null ? 0L : lastKey));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        log.info("Book store opened {} with {} books", file.isEmpty() ? "in memory" : file, books.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+
+    @Override
+    public Book save(Book book) {
+        if (book.getId() == null) {
+            return insert(book).orElseThrow(() -> new DuplicateKeyException("Book with title " + book.getTitle() + " already registered"));
+        }
+        ReentrantLock lock = lockFor(book.getId());
+        lock.lock();
+        try {
+            byte[] previous = books.get(book.getId());
+            Book previousBook = previous == null ? null : decode(book.getId(), previous);
+            if (previousBook == null || !previousBook.getTitle().equals(book.getTitle())) {
+                Long owner = titles.putIfAbsent(book.getTitle(), book.getId());
+                if (owner != null && !owner.equals(book.getId())) {
+                    throw new DuplicateKeyException("Book with title " + book.getTitle() + " already registered");
+                }
+                if (previousBook != null) {
+                    titles.remove(previousBook.getTitle(), book.getId());
+                }
+            }
+            Book saved = copy(book, previousBook == null ? 0L : previousBook.getVersion() + 1);
+            persistLastId(lastId.accumulateAndGet(saved.getId(), Math::max));
+            books.put(saved.getId(), encode(saved));
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Book> insertAll(List<Book> newBooks) {
+        List<Book> insertedBooks = new ArrayList<>(newBooks.size());
+        for (Book book : newBooks) {
+            insert(book).ifPresent(insertedBooks::add);
+        }
+        return insertedBooks;
+    }
+
+    private Optional<Book> insert(Book book) {
+        long id = lastId.incrementAndGet();
+        if (titles.putIfAbsent(book.getTitle(), id) != null) {
+            return Optional.empty();
+        }
+        book.setId(id);
+        Book saved = copy(book, 0L);
+        persistLastId(id);
+        books.put(id, encode(saved));
+        return Optional.of(saved);
+    }
+
+    /**
+     * Raises the stored counter to {@code id}, never lowering it when concurrent inserts
+     * get here out of order. It is written before the book, so the file never holds a book
+     * above the counter.
+     */
+    private void persistLastId(long id) {
+        while (true) {
+            Long stored = counters.putIfAbsent(LAST_ID, id);
+            if (stored == null || stored >= id || counters.replace(LAST_ID, stored, id)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Optional<Book> findById(Long id) {
+        byte[] record = books.get(id);
+        return record == null ? Optional.empty() : Optional.of(decode(id, record));
+    }
+
+    @Override
+    public Optional<Book> findByTitle(String title) {
+        Long id = titles.get(title);
+        return id == null ? Optional.empty() : findById(id).filter(book -> book.getTitle().equals(title));
+    }
+
+    @Override
+    public List<Book> findAllById(Collection<Long> ids) {
+        List<Book> found = new ArrayList<>(ids.size());
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public List<Book> findByTitleIn(Collection<String> titlesToFind) {
+        List<Book> found = new ArrayList<>(titlesToFind.size());
+        titlesToFind.forEach(title -> findByTitle(title).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public List<Book> findAll() {
+        List<Book> all = new ArrayList<>(books.size());
+        forEachOrderedById(all::add);
+        return all;
+    }
+
+    @Override
+    public List<Book> findPage(String author, BookType genre, long afterId, int limit) {
+        List<Book> page = new ArrayList<>(Math.min(limit, 1024));
+        Cursor<Long, byte[]> cursor = books.cursor(afterId + 1);
+        while (page.size() < limit && cursor.hasNext()) {
+            long id = cursor.next();
+            byte[] record = cursor.getValue();
+            if (genre != null && record[GENRE_OFFSET] != genre.ordinal()) {
+                continue;
+            }
+            Book book = decode(id, record);
+            if (author == null || author.equals(book.getAuthor())) {
+                page.add(book);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachOrderedById(Consumer<Book> consumer) {
+        Cursor<Long, byte[]> cursor = books.cursor(null);
+        while (cursor.hasNext()) {
+            long id = cursor.next();
+            consumer.accept(decode(id, cursor.getValue()));
+        }
+    }
+
+    /**
+     * Reads only the version from each record header.
+     */
+    @Override
+    public CatalogFingerprint fingerprint() {
+        long count = 0L;
+        long maxId = 0L;
+        long versionSum = 0L;
+        Cursor<Long, byte[]> cursor = books.cursor(null);
+        while (cursor.hasNext()) {
+            maxId = cursor.next();
+            versionSum += ByteBuffer.wrap(cursor.getValue()).getLong(VERSION_OFFSET);
+            count++;
+        }
+        return new CatalogFingerprint(count, maxId, versionSum);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            byte[] record = books.remove(id);
+            if (record != null) {
+                titles.remove(decode(id, record).getTitle(), id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Book adjustQuantity(Long id, int delta) throws BookNotFoundException, BookStockExceededException {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        byte[] adjusted;
+        try {
+            byte[] record = books.get(id);
+            if (record == null) {
+                throw new BookNotFoundException(id);
+            }
+            adjusted = adjust(record, delta);
+            if (adjusted == null) {
+                throw new BookStockExceededException(id, Math.abs(delta));
+            }
+            books.put(id, adjusted);
+        } finally {
+            lock.unlock();
+        }
+        return decode(id, adjusted);
+    }
+
+    /**
+     * Holds the lock stripes of every book in the batch, taken in stripe order, while the
+     * adjustments are checked against and written to the records; concurrent readers may
+     * see a batch half written.
+     */
+    @Override
+    public int[] adjustQuantities(List<StockAdjustmentDTO> adjustments, boolean atomic) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        adjustments.forEach(adjustment -> stripes.add(stripe(adjustment.getId())));
+        stripes.forEach(stripe -> locks[stripe].lock());
+        try {
+            int[] updatedRows = new int[adjustments.size()];
+            Map<Long, byte[]> records = new HashMap<>();
+            boolean failed = false;
+            for (int i = 0; i < adjustments.size(); i++) {
+                StockAdjustmentDTO adjustment = adjustments.get(i);
+                byte[] record = records.computeIfAbsent(adjustment.getId(), books::get);
+                byte[] adjusted = record == null ? null : adjust(record, adjustment.getDelta());
+                if (adjusted == null) {
+                    failed = true;
+                } else {
+                    records.put(adjustment.getId(), adjusted);
+                    updatedRows[i] = 1;
+                }
+            }
+            if (!(atomic && failed)) {
+                records.forEach((id, record) -> {
+                    if (record != null) {
+                        books.put(id, record);
+                    }
+                });
+            }
+            return updatedRows;
+        } finally {
+            stripes.descendingSet().forEach(stripe -> locks[stripe].unlock());
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[stripe(id)];
+    }
+
+    private static int stripe(long id) {
+        return (int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1);
+    }
+
+    /**
+     * Copies the record with the quantity moved by {@code delta} and the version bumped, or
+     * returns null when the quantity would leave zero to max.
+     */
+    private static byte[] adjust(byte[] record, int delta) {
+        ByteBuffer header = ByteBuffer.wrap(record);
+        long quantity = (long) header.getInt(QUANTITY_OFFSET) + delta;
+        if (quantity < 0 || quantity > header.getInt(MAX_OFFSET)) {
+            return null;
+        }
+        byte[] adjusted = record.clone();
+        ByteBuffer.wrap(adjusted)
+                .putInt(QUANTITY_OFFSET, (int) quantity)
+                .putLong(VERSION_OFFSET, header.getLong(VERSION_OFFSET) + 1);
+        return adjusted;
+    }
+
+    private static byte[] encode(Book book) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + book.getTitle().length() + book.getAuthor().length() + 4);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(book.getMax());
+            out.writeInt(book.getQuantity());
+            out.writeByte(book.getGenre().ordinal());
+            out.writeLong(book.getVersion());
+            out.writeUTF(book.getTitle());
+            out.writeUTF(book.getAuthor());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Book decode(long id, byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            int max = in.readInt();
+            int quantity = in.readInt();
+            BookType genre = GENRES[in.readByte()];
+            long version = in.readLong();
+            return new Book(id, in.readUTF(), in.readUTF(), max, quantity, genre, version);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Book copy(Book book, long version) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getMax(), book.getQuantity(), book.getGenre(), version);
+    }
+
+    private static void createParentDirectories(Path file) {
+        Path parent = file.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(parent);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
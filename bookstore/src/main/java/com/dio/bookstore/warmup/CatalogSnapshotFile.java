@@ -0,0 +1,146 @@
+package com.dio.bookstore.warmup;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.store.CatalogFingerprint;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary copy of the catalog on local disk, tagged with the {@link CatalogFingerprint} of the
+ * store it was read from. The layout is a header {@code magic, format, fingerprint}, then
+ * {@code count} books as {@code id, max, quantity, genre ordinal, title, author}, then the hot
+ * titles, and a CRC32 of everything before it. A new file is written next to the old one and
+ * moved over it, so a reader sees either the previous copy or the complete new one.
+ */
+@Slf4j
+public class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x424b534e;
+    private static final int FORMAT = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final BookType[] GENRES = BookType.values();
+
+    private final Path file;
+
+    public CatalogSnapshotFile(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the snapshot if there is one for exactly the {@code current} catalog. Only the
+     * header is read from a snapshot of another catalog; a damaged file is logged and ignored.
+     */
+    public Optional<Snapshot> read(CatalogFingerprint current) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                log.warn("Ignoring catalog snapshot {} in an unknown format", file);
+                return Optional.empty();
+            }
+            CatalogFingerprint fingerprint = new CatalogFingerprint(in.readLong(), in.readLong(), in.readLong());
+            if (!fingerprint.equals(current)) {
+                log.info("Catalog snapshot {} is stale: taken at {}, store is at {}", file, fingerprint, current);
+                return Optional.empty();
+            }
+            int count = in.readInt();
+            List<BookDTO> books = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                int max = in.readInt();
+                int quantity = in.readInt();
+                BookType genre = GENRES[in.readUnsignedByte()];
+                books.add(new BookDTO(id, in.readUTF(), in.readUTF(), max, quantity, genre));
+            }
+            int hotCount = in.readInt();
+            List<String> hotTitles = new ArrayList<>(hotCount);
+            for (int i = 0; i < hotCount; i++) {
+                hotTitles.add(in.readUTF());
+            }
+            int expectedCrc = (int) crc.getValue();
+            if (in.readInt() != expectedCrc) {
+                log.warn("Ignoring catalog snapshot {} with a bad checksum", file);
+                return Optional.empty();
+            }
+            return Optional.of(new Snapshot(fingerprint, books, hotTitles));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    public void write(Snapshot snapshot) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), crc));
+                writeContents(snapshot, out);
+                out.flush();
+                out.writeInt((int) crc.getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeContents(Snapshot snapshot, DataOutputStream out) throws IOException {
+        CatalogFingerprint fingerprint = snapshot.getFingerprint();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeLong(fingerprint.getCount());
+        out.writeLong(fingerprint.getMaxId());
+        out.writeLong(fingerprint.getVersionSum());
+        out.writeInt(snapshot.getBooks().size());
+        for (BookDTO book : snapshot.getBooks()) {
+            out.writeLong(book.getId());
+            out.writeInt(book.getMax());
+            out.writeInt(book.getQuantity());
+            out.writeByte(book.getGenre().ordinal());
+            out.writeUTF(book.getTitle());
+            out.writeUTF(book.getAuthor());
+        }
+        out.writeInt(snapshot.getHotTitles().size());
+        for (String title : snapshot.getHotTitles()) {
+            out.writeUTF(title);
+        }
+    }
+
+    /**
+     * The books in id order and the titles to cache first, hottest first.
+     */
+    @Value
+    public static class Snapshot {
+
+        CatalogFingerprint fingerprint;
+        List<BookDTO> books;
+        List<String> hotTitles;
+    }
+}
@@ -0,0 +1,219 @@
+package com.dio.bookstore.warmup;
+
+import com.dio.bookstore.analytics.StockAnalytics;
+import com.dio.bookstore.cache.BookTitleCache;
+import com.dio.bookstore.cache.CatalogResponseCache;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.replenishment.LowStockTracker;
+import com.dio.bookstore.search.BookSearchIndex;
+import com.dio.bookstore.store.BookStore;
+import com.dio.bookstore.store.CatalogFingerprint;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the search index, the low-stock set, the stock analytics, the title cache and, when
+ * enabled, the pre-encoded catalog before the application reports ready. Spring Boot only
+ * switches readiness to accepting traffic once the started listeners have returned, so a new
+ * node joins with warm caches instead of sending its first minutes of traffic to the store.
+ *
+ * <p>The catalog comes from the {@link CatalogSnapshotFile} when its fingerprint still
+ * matches the store, and otherwise from the store, read as id ranges in parallel. The
+ * snapshot is rewritten on shutdown with the titles that were hottest in the cache, and those
+ * are cached first on the next start. Books changed while warming are kept out of the loaded
+ * copy by the index and the caches themselves.
+ */
+@Slf4j
+@Component
+public class CatalogWarmup {
+
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final BookStore bookStore;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookTitleCache bookTitleCache;
+    private final LowStockTracker lowStockTracker;
+    private final StockAnalytics stockAnalytics;
+    private final ObjectProvider<CatalogResponseCache> catalogResponseCache;
+    private final MeterRegistry meterRegistry;
+    private final CatalogSnapshotFile snapshotFile;
+    private final int threads;
+    private final int chunkSize;
+    private final BookMapper bookMapper = BookMapper.INSTANCE;
+
+    private volatile long warmupMillis;
+    private volatile long readyMillis;
+
+    public CatalogWarmup(BookStore bookStore,
+                         BookSearchIndex bookSearchIndex,
+                         BookTitleCache bookTitleCache,
+                         LowStockTracker lowStockTracker,
+                         StockAnalytics stockAnalytics,
+                         ObjectProvider<CatalogResponseCache> catalogResponseCache,
+                         MeterRegistry meterRegistry,
+                         @Value("${bookstore.warmup.snapshot.file:}") String snapshotFile,
+                         @Value("${bookstore.warmup.threads:4}") int threads,
+                         @Value("${bookstore.warmup.chunk-size:1000}") int chunkSize) {
+        this.bookStore = bookStore;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookTitleCache = bookTitleCache;
+        this.lowStockTracker = lowStockTracker;
+        this.stockAnalytics = stockAnalytics;
+        this.catalogResponseCache = catalogResponseCache;
+        this.meterRegistry = meterRegistry;
+        this.snapshotFile = snapshotFile.isEmpty() ? null : new CatalogSnapshotFile(Paths.get(snapshotFile));
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warm() {
+        long startTime = System.nanoTime();
+        CatalogFingerprint fingerprint = bookStore.fingerprint();
+        Optional<CatalogSnapshotFile.Snapshot> snapshot = snapshotFile == null ? Optional.empty() : snapshotFile.read(fingerprint);
+        String source = snapshot.isPresent() ? "snapshot" : "store";
+        List<BookDTO> books = snapshot.map(CatalogSnapshotFile.Snapshot::getBooks).orElseGet(() -> readStore(fingerprint));
+        List<String> hotTitles = snapshot.map(CatalogSnapshotFile.Snapshot::getHotTitles).orElseGet(List::of);
+
+        bookSearchIndex.load(books);
+        lowStockTracker.load(books);
+        stockAnalytics.load(books);
+        int cachedTitles = bookTitleCache.preload(hottestFirst(books, hotTitles));
+        catalogResponseCache.ifAvailable(CatalogResponseCache::refresh);
+
+        long elapsed = System.nanoTime() - startTime;
+        warmupMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        Timer.builder("bookstore.warmup.duration")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Catalog warmed from the {} with {} books, {} titles cached, in {} ms", source, books.size(), cachedTitles, warmupMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportReady() {
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        meterRegistry.more().timeGauge("bookstore.startup.ready.time", List.of(), this, TimeUnit.MILLISECONDS, warmup -> warmup.readyMillis);
+        log.info("Ready to serve {} ms after the JVM started, {} ms of it warming the catalog", readyMillis, warmupMillis);
+    }
+
+    /**
+     * Takes the snapshot for the next start. It is skipped when the catalog changes while it
+     * is read, since the books would no longer match the fingerprint.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void saveSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            CatalogFingerprint fingerprint = bookStore.fingerprint();
+            List<BookDTO> books = new ArrayList<>(Math.toIntExact(fingerprint.getCount()));
+            bookStore.forEachOrderedById(book -> books.add(bookMapper.toDTO(book)));
+            if (!fingerprint.equals(bookStore.fingerprint())) {
+                log.info("Catalog changed while the warm-up snapshot was read, it is not written");
+                return;
+            }
+            snapshotFile.write(new CatalogSnapshotFile.Snapshot(fingerprint, books, bookTitleCache.hottestTitles()));
+            log.info("Catalog snapshot written with {} books in {} ms", books.size(), System.currentTimeMillis() - startTime);
+        } catch (RuntimeException e) {
+            log.warn("Could not write the catalog snapshot, the next start reads the store", e);
+        }
+    }
+
+    /**
+     * Splits the ids up to the fingerprint's highest into ranges and pages through each on
+     * the warm-up threads. Books created meanwhile have higher ids and reach the caches
+     * through their change events.
+     */
+    private List<BookDTO> readStore(CatalogFingerprint fingerprint) {
+        long maxId = fingerprint.getMaxId();
+        long rangeCount = Math.max(1L, Math.min((long) threads * RANGES_PER_THREAD, fingerprint.getCount() / chunkSize + 1));
+        long rangeSize = maxId / rangeCount + 1;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-warmup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<List<BookDTO>>> ranges = new ArrayList<>();
+            for (long afterId = 0L; afterId < maxId; afterId += rangeSize) {
+                long from = afterId;
+                long until = Math.min(maxId, afterId + rangeSize);
+                ranges.add(executor.submit(() -> readRange(from, until)));
+            }
+            List<BookDTO> books = new ArrayList<>(Math.toIntExact(fingerprint.getCount()));
+            for (Future<List<BookDTO>> range : ranges) {
+                books.addAll(range.get());
+            }
+            return books;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the catalog", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not read the catalog", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<BookDTO> readRange(long afterId, long untilId) {
+        List<BookDTO> books = new ArrayList<>();
+        long lastSeenId = afterId;
+        List<Book> chunk;
+        do {
+            chunk = bookStore.findPage(null, null, lastSeenId, chunkSize);
+            for (Book book : chunk) {
+                if (book.getId() > untilId) {
+                    return books;
+                }
+                books.add(bookMapper.toDTO(book));
+                lastSeenId = book.getId();
+            }
+        } while (chunk.size() == chunkSize);
+        return books;
+    }
+
+    private static List<BookDTO> hottestFirst(List<BookDTO> books, List<String> hotTitles) {
+        if (hotTitles.isEmpty()) {
+            return books;
+        }
+        Map<String, BookDTO> byTitle = new LinkedHashMap<>();
+        books.forEach(book -> byTitle.put(book.getTitle(), book));
+        List<BookDTO> ordered = new ArrayList<>(books.size());
+        hotTitles.forEach(title -> {
+            BookDTO book = byTitle.remove(title);
+            if (book != null) {
+                ordered.add(book);
+            }
+        });
+        ordered.addAll(byTitle.values());
+        return ordered;
+    }
+}
@@ -0,0 +1,158 @@
+package com.dio.bookstore.analytics;
+
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockAnalyticsDTO;
+import com.dio.bookstore.dto.StockTotalsDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.service.StockUpdater;
+import com.dio.bookstore.store.MvStoreBookStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class StockAnalyticsTest {
+
+    private MvStoreBookStore bookStore;
+    private SimpleMeterRegistry meterRegistry;
+    private StockAnalytics stockAnalytics;
+    private Consumer<Book> duringScan = book -> {
+    };
+    private UnaryOperator<Book> heldStock = UnaryOperator.identity();
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new MvStoreBookStore("", Duration.ofSeconds(1), "conditional");
+        bookStore.insertAll(new ArrayList<>(List.of(
+                new Book(null, "O Hobbit", "Tolkien", 10, 4, BookType.Fantasy, 0L),
+                new Book(null, "O Silmarillion", "Tolkien", 5, 1, BookType.Fantasy, 0L),
+                new Book(null, "It", "King", 8, 8, BookType.Horror, 0L))));
+        meterRegistry = new SimpleMeterRegistry();
+        StockUpdater stockUpdater = new StockUpdater() {
+            @Override
+            public Book adjust(Long id, int delta) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Book current(Book stored) {
+                duringScan.accept(stored);
+                return heldStock.apply(stored);
+            }
+        };
+        stockAnalytics = new StockAnalytics(bookStore, stockUpdater, meterRegistry, Duration.ofMinutes(10));
+        stockAnalytics.load(storedBooks());
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookStore.close();
+    }
+
+    @Test
+    void whenBooksChangeThenTotalsFollowTheEvents() throws Exception {
+        Book created = bookStore.save(new Book(null, "Duna", "Herbert", 10, 2, BookType.SciFi, 0L));
+        stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.CREATED, toDTO(created)));
+        Book hobbit = bookStore.findByTitle("O Hobbit").orElseThrow();
+        stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, toDTO(bookStore.adjustQuantity(hobbit.getId(), -3)), -3));
+        Book it = bookStore.findByTitle("It").orElseThrow();
+        bookStore.deleteById(it.getId());
+        stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, toDTO(it)));
+
+        StockAnalyticsDTO summary = stockAnalytics.summary();
+
+        assertThat(summary.getTotal(), is(equalTo(new StockTotalsDTO("total", 3, 4, 25, 4.0 / 25))));
+        assertThat(genre(summary, BookType.Fantasy), is(equalTo(new StockTotalsDTO("Fantasy", 2, 2, 15, 2.0 / 15))));
+        assertThat(genre(summary, BookType.Horror), is(equalTo(new StockTotalsDTO("Horror", 0, 0, 0, 0.0))));
+        assertThat(stockAnalytics.authors(null, 10).stream().map(StockTotalsDTO::getName).collect(Collectors.toList()), contains("Herbert", "Tolkien"));
+        assertThat(stockAnalytics.authors("Herbert", 10), contains(new StockTotalsDTO("Tolkien", 2, 2, 15, 2.0 / 15)));
+        assertThat(stockAnalytics.reconcile(), is(true));
+        assertThat(meterRegistry.get("bookstore.analytics.reconciliations").tag("result", "matched").counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenTotalsDriftThenReconciliationReplacesThemWithTheStore() {
+        StockTotalsDTO storedTotal = stockAnalytics.summary().getTotal();
+        BookDTO hobbit = toDTO(bookStore.findByTitle("O Hobbit").orElseThrow());
+        stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, hobbit, 5));
+
+        assertThat(stockAnalytics.reconcile(), is(true));
+        assertThat(stockAnalytics.summary().getTotal().getQuantity(), is(equalTo(storedTotal.getQuantity() + 5)));
+        assertThat(stockAnalytics.reconcile(), is(true));
+
+        assertThat(stockAnalytics.summary().getTotal(), is(equalTo(storedTotal)));
+        assertThat(meterRegistry.get("bookstore.analytics.reconciliations").tag("result", "unconfirmed").counter().count(), is(equalTo(1.0)));
+        assertThat(meterRegistry.get("bookstore.analytics.reconciliations").tag("result", "corrected").counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenEventsArriveDuringEveryPassThenDriftIsStillCorrected() {
+        StockTotalsDTO storedTotal = stockAnalytics.summary().getTotal();
+        Book hobbit = bookStore.findByTitle("O Hobbit").orElseThrow();
+        Book silmarillion = bookStore.findByTitle("O Silmarillion").orElseThrow();
+        Book it = bookStore.findByTitle("It").orElseThrow();
+        stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, toDTO(hobbit), 5));
+        duringScan = book -> {
+            if (book.getId().equals(silmarillion.getId())) {
+                adjust(hobbit, -1);
+                adjust(it, -2);
+            }
+        };
+
+        assertThat(stockAnalytics.reconcile(), is(true));
+        assertThat(stockAnalytics.reconcile(), is(true));
+
+        assertThat(stockAnalytics.summary().getTotal(), is(equalTo(new StockTotalsDTO("total", 3, storedTotal.getQuantity() - 6, 23, (storedTotal.getQuantity() - 6) / 23.0))));
+        assertThat(meterRegistry.get("bookstore.analytics.reconciliations").tag("result", "discarded").counter().count(), is(equalTo(0.0)));
+        assertThat(meterRegistry.get("bookstore.analytics.reconciliations").tag("result", "corrected").counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenTheUpdaterHoldsStockAheadOfTheStoreThenTheScanCountsIt() {
+        Book hobbit = bookStore.findByTitle("O Hobbit").orElseThrow();
+        heldStock = book -> book.getId().equals(hobbit.getId())
+                ? new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getMax(), book.getQuantity() + 3, book.getGenre(), book.getVersion())
+                : book;
+        stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, toDTO(hobbit), 3));
+
+        assertThat(stockAnalytics.reconcile(), is(true));
+
+        assertThat(meterRegistry.get("bookstore.analytics.reconciliations").tag("result", "matched").counter().count(), is(equalTo(1.0)));
+    }
+
+    private void adjust(Book book, int delta) {
+        try {
+            stockAnalytics.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, toDTO(bookStore.adjustQuantity(book.getId(), delta)), delta));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<BookDTO> storedBooks() {
+        return bookStore.findAll().stream().map(StockAnalyticsTest::toDTO).collect(Collectors.toList());
+    }
+
+    private static StockTotalsDTO genre(StockAnalyticsDTO summary, BookType genre) {
+        return summary.getGenres().get(genre.ordinal());
+    }
+
+    private static BookDTO toDTO(Book book) {
+        return BookMapper.INSTANCE.toDTO(book);
+    }
+}
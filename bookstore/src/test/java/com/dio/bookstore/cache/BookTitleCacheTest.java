@@ -0,0 +1,101 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BookTitleCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BookTitleCache bookTitleCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookTitleCache = new BookTitleCache(100, meterRegistry);
+    }
+
+    @Test
+    void whenStockChangesThenCachedBookIsEvicted() {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        BookDTO updatedBookDTO = BookDTOBuilder.builder().quantity(5).build().toBookDTO();
+        BookDTO olderBookDTO = BookDTOBuilder.builder().quantity(7).build().toBookDTO();
+        bookTitleCache.get(bookDTO.getTitle(), title -> bookDTO);
+
+        bookTitleCache.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, updatedBookDTO, -5));
+        bookTitleCache.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, olderBookDTO, -3));
+
+        assertThat(bookTitleCache.get(bookDTO.getTitle(), title -> updatedBookDTO), is(equalTo(updatedBookDTO)));
+    }
+
+    @Test
+    void whenReturnedBookIsModifiedThenCachedBookIsNot() {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        bookTitleCache.get(bookDTO.getTitle(), title -> bookDTO).setQuantity(0);
+        bookDTO.setQuantity(1);
+
+        assertThat(bookTitleCache.get(bookDTO.getTitle(), title -> null).getQuantity(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenBookIsDeletedThenItIsEvicted() {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        bookTitleCache.get(bookDTO.getTitle(), title -> bookDTO);
+
+        bookTitleCache.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, bookDTO));
+
+        assertThat(bookTitleCache.get(bookDTO.getTitle(), title -> null), is(nullValue()));
+    }
+
+    @Test
+    void whenLookupsHappenThenHitsAndMissesAreRecorded() {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+
+        bookTitleCache.get(bookDTO.getTitle(), title -> bookDTO);
+        bookTitleCache.get(bookDTO.getTitle(), title -> bookDTO);
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), is(equalTo(1.0)));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenBooksArePreloadedThenCachedTitlesAreKeptAndCapacityIsRespected() {
+        BookTitleCache smallCache = new BookTitleCache(2, meterRegistry);
+        BookDTO cachedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        BookDTO staleBookDTO = BookDTOBuilder.builder().quantity(1).build().toBookDTO();
+        BookDTO hobbitDTO = BookDTOBuilder.builder().id(2L).title("O Hobbit").build().toBookDTO();
+        BookDTO dunaDTO = BookDTOBuilder.builder().id(3L).title("Duna").build().toBookDTO();
+        smallCache.get(cachedBookDTO.getTitle(), title -> cachedBookDTO);
+
+        int added = smallCache.preload(List.of(staleBookDTO, hobbitDTO, dunaDTO));
+
+        assertThat(added, is(equalTo(1)));
+        assertThat(smallCache.get(cachedBookDTO.getTitle(), title -> null), is(equalTo(cachedBookDTO)));
+        assertThat(smallCache.get(hobbitDTO.getTitle(), title -> null), is(equalTo(hobbitDTO)));
+        assertThat(smallCache.get(dunaDTO.getTitle(), title -> null), is(nullValue()));
+    }
+
+    @Test
+    void whenBookChangesBeforePreloadThenThePreloadedCopyIsLeftOut() {
+        BookDTO preloadedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        BookDTO changedBookDTO = BookDTOBuilder.builder().quantity(1).build().toBookDTO();
+
+        bookTitleCache.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, changedBookDTO, -1));
+        int added = bookTitleCache.preload(List.of(preloadedBookDTO));
+
+        assertThat(added, is(equalTo(0)));
+        assertThat(bookTitleCache.get(preloadedBookDTO.getTitle(), title -> changedBookDTO), is(equalTo(changedBookDTO)));
+    }
+}
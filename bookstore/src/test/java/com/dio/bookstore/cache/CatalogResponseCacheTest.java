@@ -0,0 +1,146 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "bookstore.cache.catalog.enabled=true")
+@AutoConfigureMockMvc
+public class CatalogResponseCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (BookDTO book : bookService.listAll()) {
+            bookService.deleteById(book.getId());
+        }
+        bookService.createBook(BookDTOBuilder.builder().id(null).title("Cached One").build().toBookDTO());
+        bookService.createBook(BookDTOBuilder.builder().id(null).title("Cached Two").build().toBookDTO());
+    }
+
+    @Test
+    void whenCatalogIsListedThenTheCachedBytesMatchTheRegularListing() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsString(), is(equalTo(objectMapper.writeValueAsString(bookService.listAll()))));
+    }
+
+    @Test
+    void whenClientAcceptsGzipThenTheCompressedCopyIsServed() throws Exception {
+        byte[] plain = mockMvc.perform(get("/api/books")).andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult result = mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertThat(in.readAllBytes(), is(equalTo(plain)));
+        }
+    }
+
+    @Test
+    void whenGzipIsServedThenItsETagDiffersFromTheIdentityOne() throws Exception {
+        String identityEtag = mockMvc.perform(get("/api/books")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipEtag = mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(gzipEtag, is(not(equalTo(identityEtag))));
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, identityEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void whenGzipIsRefusedWithAZeroQualityThenTheIdentityCopyIsServed() throws Exception {
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void whenCatalogChangesWhileASnapshotIsHeldThenTheHeldSnapshotStaysReadable() throws Exception {
+        try (CatalogResponseCache.Snapshot held = catalogResponseCache.acquire()) {
+            bookService.createBook(BookDTOBuilder.builder().id(null).title("Cached Three").build().toBookDTO());
+            try (CatalogResponseCache.Snapshot replacement = catalogResponseCache.acquire()) {
+                assertThat(replacement.getVersion(), is(not(equalTo(held.getVersion()))));
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            held.writeTo(out, false);
+            assertThat(out.toString(), is(not(equalTo(""))));
+            assertThat(out.toString().contains("Cached Three"), is(false));
+        }
+    }
+
+    @Test
+    void whenCatalogChangesThenItIsEncodedAgainOnce() throws Exception {
+        String etag = mockMvc.perform(get("/api/books")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        double rebuilds = rebuilds();
+
+        BookDTO added = bookService.createBook(BookDTOBuilder.builder().id(null).title("Cached Three").build().toBookDTO());
+        String body = mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/api/books"));
+
+        assertThat(body.contains(added.getTitle()), is(true));
+        assertThat(rebuilds(), is(equalTo(rebuilds + 1)));
+    }
+
+    @Test
+    void whenListingIsFilteredThenTheRegularControllerAnswers() throws Exception {
+        mockMvc.perform(get("/api/books").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, nullValue()));
+    }
+
+    private double rebuilds() {
+        return meterRegistry.get("bookstore.cache.catalog.rebuilds").counter().count();
+    }
+}
@@ -0,0 +1,128 @@
+package com.dio.bookstore.cache;
+
+import com.dio.bookstore.exceptions.BookStockConflictException;
+import com.dio.bookstore.exceptions.IdempotencyKeyInProgressException;
+import com.dio.bookstore.exceptions.IdempotencyKeyReusedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotencyStoreTest {
+
+    private static final String KEY = "checkout-42";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyStore idempotencyStore;
+
+    private final AtomicInteger applied = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyStore = new IdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(1), meterRegistry);
+    }
+
+    @Test
+    void whenKeyIsRepeatedThenTheFirstResponseIsReplayed() throws Exception {
+        String first = idempotencyStore.execute(KEY, "decrement:1:2", () -> "response-" + applied.incrementAndGet());
+        String retry = idempotencyStore.execute(KEY, "decrement:1:2", () -> "response-" + applied.incrementAndGet());
+
+        assertThat(retry, is(equalTo(first)));
+        assertThat(applied.get(), is(equalTo(1)));
+        assertThat(meterRegistry.get("bookstore.idempotency.replays").counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenKeyIsReusedForAnotherRequestThenItIsRejected() throws Exception {
+        idempotencyStore.execute(KEY, "decrement:1:2", () -> "response");
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyStore.execute(KEY, "decrement:1:3", () -> "other"));
+    }
+
+    @Test
+    void whenFirstAttemptFailsThenTheKeyCanBeRetried() throws Exception {
+        assertThrows(BookStockConflictException.class, () -> idempotencyStore.execute(KEY, "decrement:1:2", () -> {
+            throw new BookStockConflictException(1L, 5);
+        }));
+
+        String retry = idempotencyStore.execute(KEY, "decrement:1:2", () -> "response-" + applied.incrementAndGet());
+
+        assertThat(retry, is(equalTo("response-1")));
+    }
+
+    @Test
+    void whenFirstAttemptThrowsAnErrorThenTheKeyCanBeRetried() throws Exception {
+        assertThrows(AssertionError.class, () -> idempotencyStore.execute(KEY, "decrement:1:2", () -> {
+            throw new AssertionError("boom");
+        }));
+
+        String retry = idempotencyStore.execute(KEY, "decrement:1:2", () -> "response-" + applied.incrementAndGet());
+
+        assertThat(retry, is(equalTo("response-1")));
+    }
+
+    @Test
+    void whenFirstAttemptOutlastsTheWaitTimeoutThenTheRetryIsTurnedAway() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = executor.submit(() -> idempotencyStore.execute(KEY, "decrement:1:2", () -> {
+                started.countDown();
+                awaitUninterruptibly(finish);
+                return "response-" + applied.incrementAndGet();
+            }));
+            started.await();
+
+            assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyStore.execute(KEY, "decrement:1:2", () -> "other"));
+            finish.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS), is(equalTo("response-1")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void whenRetryArrivesWhileFirstAttemptRunsThenItWaitsForItsResponse() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> idempotencyStore.execute(KEY, "decrement:1:2", () -> {
+                started.countDown();
+                awaitUninterruptibly(finish);
+                return "response-" + applied.incrementAndGet();
+            }));
+            started.await();
+            Future<String> hedged = executor.submit(() -> idempotencyStore.execute(KEY, "decrement:1:2", () -> "response-" + applied.incrementAndGet()));
+            finish.countDown();
+
+            assertThat(hedged.get(5, TimeUnit.SECONDS), is(equalTo(first.get(5, TimeUnit.SECONDS))));
+            assertThat(applied.get(), is(equalTo(1)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
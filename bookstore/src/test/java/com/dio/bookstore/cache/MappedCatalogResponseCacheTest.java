@@ -0,0 +1,7 @@
+package com.dio.bookstore.cache;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "bookstore.cache.catalog.storage=mapped")
+public class MappedCatalogResponseCacheTest extends CatalogResponseCacheTest {
+}
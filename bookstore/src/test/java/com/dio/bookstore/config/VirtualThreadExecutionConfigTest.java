@@ -0,0 +1,95 @@
+package com.dio.bookstore.config;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@EnabledIfSystemProperty(named = "java.specification.version", matches = "2[1-9]|[3-9]\\d")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "bookstore.web.execution-mode=virtual")
+public class VirtualThreadExecutionConfigTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Test
+    void whenTomcatRunsATaskThenItRunsOnANamedVirtualThread() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+        webServer.getTomcat().getConnector().getProtocolHandler().getExecutor().execute(() -> thread.complete(Thread.currentThread()));
+
+        Thread requestThread = thread.get(5, TimeUnit.SECONDS);
+        assertThat(Thread.class.getMethod("isVirtual").invoke(requestThread), is(equalTo(true)));
+        assertThat(requestThread.getName(), startsWith("tomcat-virtual-"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenTheExecutorRejectsATaskThenItIsNotCountedInFlight() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+        ProtocolHandler protocolHandler = mock(ProtocolHandler.class);
+        ((TomcatProtocolHandlerCustomizer<ProtocolHandler>) new VirtualThreadExecutionConfig()
+                .virtualThreadProtocolHandlerCustomizer(stopped, meterRegistry)).customize(protocolHandler);
+        ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+        verify(protocolHandler).setExecutor(executor.capture());
+
+        assertThrows(RejectedExecutionException.class, () -> executor.getValue().execute(() -> {
+        }));
+
+        assertThat(meterRegistry.get("bookstore.web.requests.in-flight").gauge().value(), is(equalTo(0.0)));
+    }
+
+    @Test
+    void whenManyRequestsArriveAtOnceThenAllOfThemAreServed() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().id(null).title("Virtual").build().toBookDTO();
+        restTemplate.postForEntity("/api/books", bookDTO, BookDTO.class);
+
+        ExecutorService clients = Executors.newFixedThreadPool(64);
+        try {
+            List<Callable<HttpStatus>> requests = IntStream.range(0, 256)
+                    .mapToObj(i -> (Callable<HttpStatus>) () -> restTemplate.getForEntity("/api/books?limit=10", String.class).getStatusCode())
+                    .collect(Collectors.toList());
+            for (Future<HttpStatus> status : clients.invokeAll(requests)) {
+                assertThat(status.get(), is(equalTo(HttpStatus.OK)));
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dio.bookstore.config;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class WireFormatConfigTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ObjectMapper smileMapper = WireFormatConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void whenSmileIsNegotiatedThenBooksRoundTripWithTheGenreAsOrdinal() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().id(null).title("Smile Round Trip").build().toBookDTO();
+
+        byte[] created = mockMvc.perform(post("/api/books")
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .content(smileMapper.writeValueAsBytes(bookDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode createdNode = smileMapper.readTree(created);
+        assertThat(createdNode.get("genre").isInt(), is(true));
+        assertThat(createdNode.get("genre").intValue(), is(equalTo(bookDTO.getGenre().ordinal())));
+
+        byte[] found = mockMvc.perform(get("/api/books/" + bookDTO.getTitle()).accept(SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        BookDTO foundBook = smileMapper.readValue(found, BookDTO.class);
+        assertThat(foundBook.getGenre(), is(equalTo(bookDTO.getGenre())));
+        assertThat(foundBook.getAuthor(), is(equalTo(bookDTO.getAuthor())));
+    }
+
+    @Test
+    void whenSmileIsNegotiatedThenItsETagDiffersFromTheJsonOne() throws Exception {
+        String jsonEtag = mockMvc.perform(get("/api/books").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smileEtag = mockMvc.perform(get("/api/books").accept(SMILE))
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(smileEtag, is(not(equalTo(jsonEtag))));
+        mockMvc.perform(get("/api/books").accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/books").accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, smileEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void whenNoBinaryFormatIsRequestedThenJsonIsServed() throws Exception {
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
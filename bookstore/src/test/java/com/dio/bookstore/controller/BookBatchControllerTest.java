@@ -0,0 +1,86 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BatchGetItemDTO;
+import com.dio.bookstore.dto.BatchGetResultDTO;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class BookBatchControllerTest {
+
+    private static final String BATCH_GET_API_URL_PATH = "/api/books:batchGet";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private BookService bookService;
+
+    @InjectMocks
+    private BookBatchController bookBatchController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(bookBatchController).build();
+    }
+
+    @Test
+    void whenBatchGetIsCalledWithIdsOnlyThenEachIdHasAResult() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        BatchGetResultDTO result = new BatchGetResultDTO(Arrays.asList(
+                new BatchGetItemDTO(1L, null, true, bookDTO),
+                new BatchGetItemDTO(7L, null, false, null)));
+
+        when(bookService.batchGet(Arrays.asList(1L, 7L), Collections.emptyList())).thenReturn(result);
+
+        mockMvc.perform(post(BATCH_GET_API_URL_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,7]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].found", is(true)))
+                .andExpect(jsonPath("$.results[0].book.title", is(bookDTO.getTitle())))
+                .andExpect(jsonPath("$.results[1].id", is(7)))
+                .andExpect(jsonPath("$.results[1].found", is(false)));
+    }
+
+    @Test
+    void whenBatchGetContainsANullTitleThenBadRequestIsReturned() throws Exception {
+        mockMvc.perform(post(BATCH_GET_API_URL_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titles\":[\"Clean Code\",null]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenBatchGetSendsNullListsThenTheyAreReadAsEmpty() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        BatchGetResultDTO result = new BatchGetResultDTO(Collections.singletonList(
+                new BatchGetItemDTO(null, bookDTO.getTitle(), true, bookDTO)));
+
+        when(bookService.batchGet(Collections.emptyList(), Collections.singletonList(bookDTO.getTitle()))).thenReturn(result);
+
+        mockMvc.perform(post(BATCH_GET_API_URL_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":null,\"titles\":[\"" + bookDTO.getTitle() + "\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].found", is(true)));
+    }
+}
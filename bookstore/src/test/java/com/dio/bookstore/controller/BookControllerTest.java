@@ -1,31 +1,54 @@
 package com.dio.bookstore.controller;
 
 import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.cache.CatalogVersion;
+import com.dio.bookstore.cache.IdempotencyStore;
+import com.dio.bookstore.dto.BatchStockAdjustmentDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentResultDTO;
 import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.BookImportErrorDTO;
+import com.dio.bookstore.dto.BookImportProgressDTO;
 import com.dio.bookstore.dto.QuantityDTO;
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.dto.StockAdjustmentResultDTO;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.enums.ImportFormat;
+import com.dio.bookstore.enums.StockAdjustmentStatus;
 import com.dio.bookstore.exceptions.BookNotFoundException;
 import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.service.BookImportListener;
+import com.dio.bookstore.service.BookImportService;
 import com.dio.bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.function.Consumer;
 
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static com.dio.bookstore.utils.JsonConvertionUtils.asJsonString;
@@ -39,12 +62,26 @@ public class BookControllerTest {
     private static final long INVALID_BOOK_ID = 2l;
     private static final String BOOK_API_SUBPATH_INCREMENT_URL = "/increment";
     private static final String BOOK_API_SUBPATH_DECREMENT_URL = "/decrement";
+    private static final String BOOK_API_SUBPATH_STOCK_BATCH_URL = "/stock:batch";
+    private static final String BOOK_API_SUBPATH_IMPORT_URL = "/import";
 
     private MockMvc mockMvc;
 
     @Mock
     private BookService bookService;
 
+    @Mock
+    private BookImportService bookImportService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(30), new SimpleMeterRegistry());
+
     @InjectMocks
     private BookController bookController;
 
@@ -96,6 +133,19 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.genre", is(bookDTO.getGenre().toString())));
     }
 
+    @Test
+    void whenGETSearchIsCalledThenMatchingBooksAreReturned() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+
+        when(bookService.search("senhor", 10)).thenReturn(Collections.singletonList(bookDTO));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH + "/search")
+                        .param("q", "senhor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title", is(bookDTO.getTitle())));
+    }
+
     @Test
     void whenGETIsCalledWithoutRegisteredTitleThenNotFoundStatusIsReturned() throws Exception {
         BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
@@ -133,6 +183,104 @@ public class BookControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenGETListWithKeysetParamsIsCalledThenAPageIsReturned() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().id(11L).build().toBookDTO();
+
+        when(bookService.listPage(null, null, 10L, 1)).thenReturn(Collections.singletonList(bookDTO));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .param("after", "10")
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(11)))
+                .andExpect(jsonPath("$[0].title", is(bookDTO.getTitle())));
+    }
+
+    @Test
+    void whenGETListWithAuthorAndGenreIsCalledThenAFilteredPageIsReturned() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+
+        when(bookService.listPage(bookDTO.getAuthor(), bookDTO.getGenre(), null, 100)).thenReturn(Collections.singletonList(bookDTO));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .param("author", bookDTO.getAuthor())
+                        .param("genre", bookDTO.getGenre().name())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].author", is(bookDTO.getAuthor())))
+                .andExpect(jsonPath("$[0].genre", is(bookDTO.getGenre().toString())));
+    }
+
+    @Test
+    void whenGETListIsCalledAcceptingNdjsonThenBooksAreStreamed() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+
+        doAnswer(invocation -> {
+            Consumer<BookDTO> consumer = invocation.getArgument(0);
+            consumer.accept(bookDTO);
+            consumer.accept(bookDTO);
+            return null;
+        }).when(bookService).streamAll(any());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String bookLine = asJsonString(bookDTO) + "\n";
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(bookLine + bookLine));
+    }
+
+    @Test
+    void whenGETListIsCalledAcceptingNdjsonWithFiltersThenOnlyMatchingBooksAreStreamed() throws Exception {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+
+        doAnswer(invocation -> {
+            Consumer<BookDTO> consumer = invocation.getArgument(4);
+            consumer.accept(bookDTO);
+            return null;
+        }).when(bookService).streamPage(eq(bookDTO.getAuthor()), eq(BookType.Fantasy), eq(10L), isNull(), any());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .param("author", bookDTO.getAuthor())
+                        .param("genre", "Fantasy")
+                        .param("after", "10")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(asJsonString(bookDTO) + "\n"));
+        verify(bookService, never()).streamAll(any());
+    }
+
+    @Test
+    void whenPOSTImportIsCalledWithCsvThenProgressIsStreamed() throws Exception {
+        BookImportProgressDTO chunkProgress = new BookImportProgressDTO(2, 1, 0, 1, false,
+                Collections.singletonList(new BookImportErrorDTO(3, "Broken", "max must be less than or equal to 10")));
+        BookImportProgressDTO finalProgress = new BookImportProgressDTO(2, 1, 0, 1, true, Collections.emptyList());
+
+        doAnswer(invocation -> {
+            BookImportListener listener = invocation.getArgument(2);
+            listener.onProgress(chunkProgress);
+            listener.onProgress(finalProgress);
+            return finalProgress;
+        }).when(bookImportService).importBooks(any(), eq(ImportFormat.CSV), any());
+
+        MvcResult mvcResult = mockMvc.perform(post(BOOK_API_URL_PATH + BOOK_API_SUBPATH_IMPORT_URL)
+                        .contentType("text/csv")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content("title,author,max,quantity,genre\n"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(asJsonString(chunkProgress) + "\n" + asJsonString(finalProgress) + "\n"));
+    }
+
     @Test
     void whenDELETEIsCalledWithValidIdThenNoContentStatusIsReturned() throws Exception {
         BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
@@ -174,6 +322,61 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.quantity", is(bookDTO.getQuantity())));
     }
 
+    @Test
+    void whenGETIsCalledWithTheCurrentETagThenNotModifiedIsReturnedWithoutLoading() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH + "/Any Title")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        verify(bookService, times(1)).listAll();
+        verify(bookService, never()).findByTitle(Mockito.any());
+    }
+
+    @Test
+    void whenCatalogChangedSinceTheETagThenTheFullResponseIsReturned() throws Exception {
+        String etag = catalogVersion.etag();
+        catalogVersion.bump();
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL_PATH)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogVersion.etag()));
+    }
+
+    @Test
+    void whenPATCHIsRetriedWithTheSameIdempotencyKeyThenTheDecrementIsAppliedOnce() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(2)
+                .build();
+
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        bookDTO.setQuantity(bookDTO.getQuantity() - quantityDTO.getQuantity());
+
+        when(bookService.decrement(VALID_BOOK_ID, quantityDTO.getQuantity())).thenReturn(bookDTO);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(MockMvcRequestBuilders.patch(BOOK_API_URL_PATH + "/" + VALID_BOOK_ID + BOOK_API_SUBPATH_DECREMENT_URL)
+                            .header(IdempotencyStore.HEADER, "checkout-42")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(quantityDTO))).andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity", is(bookDTO.getQuantity())));
+        }
+
+        verify(bookService, times(1)).decrement(VALID_BOOK_ID, quantityDTO.getQuantity());
+    }
+
     @Test
     void whenPATCHIsCalledToIncrementGreaterThanMaxThenBadRequestStatusIsReturned() throws Exception {
         QuantityDTO quantityDTO = QuantityDTO.builder()
@@ -253,4 +456,35 @@ public class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+
+    @Test
+    void whenPATCHIsCalledWithStockBatchThenResultsAreReturned() throws Exception {
+        BatchStockAdjustmentDTO batchDTO = BatchStockAdjustmentDTO.builder()
+                .adjustments(Collections.singletonList(new StockAdjustmentDTO(VALID_BOOK_ID, 3)))
+                .build();
+        BatchStockAdjustmentResultDTO resultDTO = new BatchStockAdjustmentResultDTO(true,
+                Collections.singletonList(new StockAdjustmentResultDTO(VALID_BOOK_ID, 3, StockAdjustmentStatus.APPLIED, 5)));
+
+        when(bookService.adjustStock(batchDTO)).thenReturn(resultDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(BOOK_API_URL_PATH + BOOK_API_SUBPATH_STOCK_BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(batchDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed", is(true)))
+                .andExpect(jsonPath("$.results[0].status", is(StockAdjustmentStatus.APPLIED.toString())))
+                .andExpect(jsonPath("$.results[0].quantity", is(5)));
+    }
+
+    @Test
+    void whenPATCHIsCalledWithEmptyStockBatchThenBadRequestStatusIsReturned() throws Exception {
+        BatchStockAdjustmentDTO batchDTO = BatchStockAdjustmentDTO.builder()
+                .adjustments(Collections.emptyList())
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(BOOK_API_URL_PATH + BOOK_API_SUBPATH_STOCK_BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(batchDTO)))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,86 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.event.StockEventLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StockEventControllerTest {
+
+    private static final String STOCK_EVENTS_API_URL_PATH = "/api/books/stock/events";
+
+    private StockEventLog stockEventLog;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        stockEventLog = new StockEventLog(100, 100, Duration.ofMinutes(1), Duration.ofSeconds(5), 1);
+        mockMvc = MockMvcBuilders.standaloneSetup(new StockEventController(stockEventLog)).build();
+        publish(1L, 5);
+        publish(2L, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockEventLog.shutdown();
+    }
+
+    @Test
+    void whenGETIsCalledWithAnOffsetThenEventsFromItAreReturned() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(STOCK_EVENTS_API_URL_PATH)
+                        .param("from", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].offset", is(1)))
+                .andExpect(jsonPath("$.events[0].id", is(2)))
+                .andExpect(jsonPath("$.nextOffset", is(2)))
+                .andExpect(jsonPath("$.reset", is(false)));
+    }
+
+    @Test
+    void whenSubscribingWithLastEventIdThenTheStreamResumesAfterIt() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(STOCK_EVENTS_API_URL_PATH)
+                        .header("Last-Event-ID", "0")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!mvcResult.getResponse().getContentAsString().contains("id:1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        String stream = mvcResult.getResponse().getContentAsString();
+        assertThat(stream, containsString("id:1\nevent:STOCK_CHANGED\n"));
+        assertThat(stream, not(containsString("id:0\n")));
+    }
+
+    private void publish(Long id, int quantity) {
+        stockEventLog.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED,
+                BookDTOBuilder.builder().id(id).quantity(quantity).build().toBookDTO()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.dio.bookstore.controller;
+
+import com.dio.bookstore.cache.IdempotencyStore;
+import com.dio.bookstore.dto.StockHoldDTO;
+import com.dio.bookstore.dto.StockHoldRequestDTO;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.exceptions.StockHoldNotFoundException;
+import com.dio.bookstore.service.StockReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.dio.bookstore.utils.JsonConvertionUtils.asJsonString;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class StockHoldControllerTest {
+
+    private static final String BOOK_API_URL_PATH = "/api/books";
+    private static final long VALID_BOOK_ID = 1L;
+    private static final String HOLD_ID = "1b9d6bcd-bbfd-4b2d-9b5d-ab8dfbbd4bed";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+    @InjectMocks
+    private StockHoldController stockHoldController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(stockHoldController).build();
+    }
+
+    @Test
+    void whenPOSTIsCalledThenStockIsHeld() throws Exception {
+        StockHoldRequestDTO request = StockHoldRequestDTO.builder().quantity(2).ttlSeconds(60L).build();
+        StockHoldDTO hold = new StockHoldDTO(HOLD_ID, VALID_BOOK_ID, 2, Instant.now().plusSeconds(60));
+
+        when(stockReservationService.hold(VALID_BOOK_ID, 2, Duration.ofSeconds(60))).thenReturn(hold);
+
+        mockMvc.perform(post(BOOK_API_URL_PATH + "/" + VALID_BOOK_ID + "/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(HOLD_ID)))
+                .andExpect(jsonPath("$.quantity", is(2)));
+    }
+
+    @Test
+    void whenPOSTIsCalledWithMoreThanAvailableThenBadRequestIsReturned() throws Exception {
+        StockHoldRequestDTO request = StockHoldRequestDTO.builder().quantity(5).build();
+
+        when(stockReservationService.hold(VALID_BOOK_ID, 5, null)).thenThrow(BookStockExceededException.class);
+
+        mockMvc.perform(post(BOOK_API_URL_PATH + "/" + VALID_BOOK_ID + "/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenCommitIsCalledForAnExpiredHoldThenNotFoundIsReturned() throws Exception {
+        when(stockReservationService.commit(HOLD_ID)).thenThrow(StockHoldNotFoundException.class);
+
+        mockMvc.perform(post(BOOK_API_URL_PATH + "/holds/" + HOLD_ID + "/commit"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenDELETEIsCalledThenTheHoldIsReleased() throws Exception {
+        StockHoldDTO hold = new StockHoldDTO(HOLD_ID, VALID_BOOK_ID, 2, Instant.now().plusSeconds(60));
+
+        when(stockReservationService.release(HOLD_ID)).thenReturn(hold);
+
+        mockMvc.perform(delete(BOOK_API_URL_PATH + "/holds/" + HOLD_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookId", is(1)));
+    }
+}
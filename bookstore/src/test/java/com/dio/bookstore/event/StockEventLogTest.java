@@ -0,0 +1,104 @@
+package com.dio.bookstore.event;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.StockEventDTO;
+import com.dio.bookstore.dto.StockEventPageDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class StockEventLogTest {
+
+    private StockEventLog stockEventLog;
+
+    @BeforeEach
+    void setUp() {
+        stockEventLog = new StockEventLog(4, 100, Duration.ofMinutes(1), Duration.ofSeconds(5), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockEventLog.shutdown();
+    }
+
+    @Test
+    void whenEventsArePublishedThenTheyAreReadFromTheGivenOffset() {
+        publish(1L, 5);
+        publish(1L, 4);
+        publish(2L, 9);
+
+        StockEventPageDTO page = stockEventLog.read(1, 10);
+
+        assertThat(page.isReset(), is(false));
+        assertThat(page.getNextOffset(), is(equalTo(3L)));
+        assertThat(page.getEvents().stream().map(StockEventDTO::getOffset).collect(Collectors.toList()), contains(1L, 2L));
+        assertThat(page.getEvents().get(0).getQuantity(), is(equalTo(4)));
+    }
+
+    @Test
+    void whenOffsetWasOverwrittenThenReadResetsToTheOldestRetainedEvent() {
+        for (int i = 0; i < 6; i++) {
+            publish(1L, i);
+        }
+
+        StockEventPageDTO page = stockEventLog.read(0, 10);
+
+        assertThat(page.isReset(), is(true));
+        assertThat(page.getEvents().stream().map(StockEventDTO::getOffset).collect(Collectors.toList()), contains(2L, 3L, 4L, 5L));
+        assertThat(page.getNextOffset(), is(equalTo(6L)));
+    }
+
+    @Test
+    void whenOffsetIsBeyondTheNewestEventThenReadResetsToTheOldestRetainedEvent() {
+        publish(1L, 5);
+        publish(1L, 4);
+
+        StockEventPageDTO page = stockEventLog.read(40, 10);
+
+        assertThat(page.isReset(), is(true));
+        assertThat(page.getEvents().stream().map(StockEventDTO::getOffset).collect(Collectors.toList()), contains(0L, 1L));
+        assertThat(page.getNextOffset(), is(equalTo(2L)));
+    }
+
+    @Test
+    void whenLimitIsNotPositiveThenOneEventIsRead() {
+        publish(1L, 5);
+        publish(1L, 4);
+
+        StockEventPageDTO page = stockEventLog.read(0, -5);
+
+        assertThat(page.getEvents(), hasSize(1));
+        assertThat(page.getNextOffset(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenPollWaitsForAnEventThenItIsAnsweredOnPublish() throws InterruptedException {
+        publish(1L, 5);
+
+        DeferredResult<StockEventPageDTO> result = stockEventLog.poll(1, 10);
+        assertThat(result.hasResult(), is(false));
+
+        publish(1L, 6);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        StockEventPageDTO page = (StockEventPageDTO) result.getResult();
+        assertThat(page.getEvents(), hasSize(1));
+        assertThat(page.getEvents().get(0).getQuantity(), is(equalTo(6)));
+    }
+
+    private void publish(Long id, int quantity) {
+        stockEventLog.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED,
+                BookDTOBuilder.builder().id(id).quantity(quantity).build().toBookDTO()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.dio.bookstore.journal;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockLevelDTO;
+import com.dio.bookstore.dto.StockMovementDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.service.BookService;
+import com.dio.bookstore.store.BookStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest
+public class StockJournalTest {
+
+    @Autowired
+    private StockJournal stockJournal;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookStore bookStore;
+
+    private BookDTO book;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        book = bookService.createBook(BookDTOBuilder.builder().id(null).title("Journal " + UUID.randomUUID()).max(50).quantity(10).build().toBookDTO());
+    }
+
+    @Test
+    void whenStockChangesThenEachChangeIsRecordedInOrder() throws Exception {
+        bookService.increment(book.getId(), 5);
+        bookService.decrement(book.getId(), 3);
+
+        List<StockMovementDTO> movements = stockJournal.movements(book.getId(), 0, 10);
+
+        assertThat(movements, hasSize(3));
+        assertThat(movements.get(0).getType(), is(equalTo(BookChangeType.CREATED)));
+        assertThat(movements.get(0).getDelta(), is(equalTo(10)));
+        assertThat(movements.get(1).getDelta(), is(equalTo(5)));
+        assertThat(movements.get(1).getQuantity(), is(equalTo(15)));
+        assertThat(movements.get(2).getDelta(), is(equalTo(-3)));
+        assertThat(movements.get(2).getQuantity(), is(equalTo(12)));
+        assertThat(movements.get(2).getRecordedAt(), is(greaterThanOrEqualTo(movements.get(1).getRecordedAt())));
+        assertThat(stockJournal.movements(book.getId(), movements.get(1).getSequence(), 10), hasSize(1));
+    }
+
+    @Test
+    void whenStockIsRebuiltThenItMatchesTheQuantityAtThatInstant() throws Exception {
+        Instant created = pause();
+        bookService.increment(book.getId(), 5);
+        Instant incremented = pause();
+        bookService.deleteById(book.getId());
+        Instant deleted = pause();
+
+        assertThat(stockJournal.stockAt(created, book.getId()), contains(new StockLevelDTO(book.getId(), 10)));
+        assertThat(stockJournal.stockAt(incremented, book.getId()), contains(new StockLevelDTO(book.getId(), 15)));
+        assertThat(stockJournal.stockAt(deleted, book.getId()), is(empty()));
+        assertThat(stockJournal.stockAt(Instant.EPOCH, book.getId()), is(empty()));
+    }
+
+    @Test
+    void whenSnapshotIsTakenThenInstantsOnBothSidesAreStillRebuilt() throws Exception {
+        bookService.increment(book.getId(), 5);
+        Instant beforeSnapshot = pause();
+        stockJournal.snapshot();
+        Instant afterSnapshot = pause();
+        bookService.decrement(book.getId(), 3);
+        Instant decremented = pause();
+
+        assertThat(stockJournal.stockAt(beforeSnapshot, book.getId()), contains(new StockLevelDTO(book.getId(), 15)));
+        assertThat(stockJournal.stockAt(afterSnapshot, book.getId()), contains(new StockLevelDTO(book.getId(), 15)));
+        assertThat(stockJournal.stockAt(decremented, book.getId()), contains(new StockLevelDTO(book.getId(), 12)));
+        assertThat(stockJournal.stockAt(decremented, null), hasItem(new StockLevelDTO(book.getId(), 12)));
+    }
+
+    @Test
+    void whenStoreChangedBehindTheJournalThenTheBaselineRecordsTheDifference() throws Exception {
+        BookDTO removed = bookService.createBook(BookDTOBuilder.builder().id(null).title("Journal " + UUID.randomUUID()).max(50).quantity(7).build().toBookDTO());
+        bookStore.adjustQuantity(book.getId(), 4);
+        bookStore.deleteById(removed.getId());
+
+        stockJournal.writeBaseline();
+        Instant started = pause();
+
+        List<StockMovementDTO> movements = stockJournal.movements(book.getId(), 0, 10);
+        assertThat(movements, hasSize(2));
+        assertThat(movements.get(1).getType(), is(equalTo(BookChangeType.STOCK_CHANGED)));
+        assertThat(movements.get(1).getDelta(), is(equalTo(4)));
+        assertThat(movements.get(1).getQuantity(), is(equalTo(14)));
+        assertThat(stockJournal.movements(removed.getId(), 0, 10).get(1).getType(), is(equalTo(BookChangeType.DELETED)));
+        assertThat(stockJournal.stockAt(started, book.getId()), contains(new StockLevelDTO(book.getId(), 14)));
+        assertThat(stockJournal.stockAt(started, removed.getId()), is(empty()));
+    }
+
+    private static Instant pause() throws InterruptedException {
+        Thread.sleep(2);
+        Instant now = Instant.now();
+        Thread.sleep(2);
+        return now;
+    }
+}
@@ -0,0 +1,146 @@
+package com.dio.bookstore.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockLedgerTest {
+
+    private RecordingJournal journal;
+
+    private StockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        journal = new RecordingJournal();
+        ledger = new StockLedger(4, journal);
+    }
+
+    @Test
+    void whenBookIsNotLoadedThenAdjustReportsIt() {
+        assertThat(ledger.adjust(1L, 1), is(equalTo(StockLedger.NOT_LOADED)));
+        assertThat(ledger.quantity(1L), is(equalTo(StockLedger.NOT_LOADED)));
+        assertThat(journal.appended, is(equalTo(0)));
+    }
+
+    @Test
+    void whenDeltaBreaksTheBoundsThenQuantityIsKept() {
+        ledger.load(1L, 2, 10);
+
+        assertThat(ledger.adjust(1L, -3), is(equalTo(StockLedger.EXCEEDED)));
+        assertThat(ledger.adjust(1L, 9), is(equalTo(StockLedger.EXCEEDED)));
+        assertThat(ledger.adjust(1L, 8), is(equalTo(10)));
+        assertThat(ledger.adjust(1L, -10), is(equalTo(0)));
+        assertThat(ledger.quantity(1L), is(equalTo(0)));
+        assertThat(journal.appended, is(equalTo(2)));
+    }
+
+    @Test
+    void whenBookIsLoadedTwiceThenTheLedgerValueWins() {
+        ledger.load(1L, 2, 10);
+        ledger.adjust(1L, 3);
+
+        ledger.load(1L, 2, 10);
+
+        assertThat(ledger.adjust(1L, 0), is(equalTo(5)));
+    }
+
+    @Test
+    void whenDrainedThenNetDeltasAreHandedOutOnceAndEvictedBooksAreDropped() {
+        ledger.load(1L, 5, 10);
+        ledger.load(2L, 5, 10);
+        ledger.adjust(1L, 3);
+        ledger.adjust(1L, -1);
+        ledger.adjust(2L, -4);
+
+        Map<Long, Integer> drained = new HashMap<>();
+        long checkpoint = ledger.drain(drained::put, 2L);
+
+        assertThat(checkpoint, is(equalTo(3L)));
+        assertThat(drained, is(equalTo(Map.of(1L, 2, 2L, -4))));
+        assertThat(ledger.adjust(2L, 1), is(equalTo(StockLedger.NOT_LOADED)));
+
+        Map<Long, Integer> drainedAgain = new HashMap<>();
+        ledger.drain(drainedAgain::put);
+        assertThat(drainedAgain.isEmpty(), is(true));
+    }
+
+    @Test
+    void whenManyBooksAreLoadedAndRemovedThenTheRestStayReachable() {
+        for (long id = 1; id <= 1000; id++) {
+            ledger.load(id, (int) (id % 7), 100);
+        }
+        for (long id = 1; id <= 1000; id += 2) {
+            ledger.remove(id);
+        }
+
+        assertThat(ledger.size(), is(equalTo(500)));
+        for (long id = 2; id <= 1000; id += 2) {
+            assertThat(ledger.adjust(id, 1), is(equalTo((int) (id % 7) + 1)));
+        }
+        assertThat(ledger.adjust(999L, 1), is(equalTo(StockLedger.NOT_LOADED)));
+    }
+
+    @Test
+    void whenSyncFailsThenTheDeltaIsNotAppliedAndIsCancelledInTheJournal() {
+        ledger.load(1L, 5, 10);
+        journal.onSync = () -> {
+            throw new UncheckedIOException(new IOException("disk full"));
+        };
+
+        assertThrows(UncheckedIOException.class, () -> ledger.adjust(1L, -3));
+
+        assertThat(journal.deltas, is(equalTo(List.of(-3, 3))));
+        journal.onSync = () -> { };
+        assertThat(ledger.adjust(1L, 0), is(equalTo(5)));
+    }
+
+    @Test
+    void whenDeltasAreStillSyncingThenTheyCountAgainstTheBounds() {
+        ledger.load(1L, 1, 2);
+        List<Integer> nested = new ArrayList<>();
+        journal.onSync = () -> {
+            if (nested.isEmpty()) {
+                nested.add(ledger.adjust(1L, -1));
+                nested.add(ledger.adjust(1L, 1));
+            }
+        };
+
+        assertThat(ledger.adjust(1L, -1), is(equalTo(1)));
+        assertThat(nested, is(equalTo(List.of(StockLedger.EXCEEDED, 2))));
+    }
+
+    private static class RecordingJournal implements StockLedger.Journal {
+
+        private final List<Integer> deltas = new ArrayList<>();
+        private int appended;
+        private Runnable onSync = () -> { };
+
+        @Override
+        public void append(long id, int delta) {
+            appended++;
+            deltas.add(delta);
+        }
+
+        @Override
+        public void sync() {
+            onSync.run();
+        }
+
+        @Override
+        public long rotate() {
+            return appended;
+        }
+    }
+}
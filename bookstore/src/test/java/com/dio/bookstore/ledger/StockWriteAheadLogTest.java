@@ -0,0 +1,83 @@
+package com.dio.bookstore.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class StockWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenLogIsReplayedThenOnlyRecordsAfterTheCheckpointAreReturned() {
+        StockWriteAheadLog writeAheadLog = new StockWriteAheadLog(directory, true);
+        writeAheadLog.open(0L);
+        writeAheadLog.append(1L, 5);
+        writeAheadLog.append(2L, -1);
+        writeAheadLog.append(1L, -2);
+        writeAheadLog.sync();
+        writeAheadLog.close();
+
+        Map<Long, Integer> replayed = new HashMap<>();
+        long highestSequence = new StockWriteAheadLog(directory, true)
+                .replay(1L, (id, delta) -> replayed.merge(id, delta, Integer::sum));
+
+        assertThat(highestSequence, is(equalTo(3L)));
+        assertThat(replayed, is(equalTo(Map.of(1L, -2, 2L, -1))));
+    }
+
+    @Test
+    void whenLastRecordIsTornThenReplayStopsBeforeIt() throws IOException {
+        StockWriteAheadLog writeAheadLog = new StockWriteAheadLog(directory, false);
+        writeAheadLog.open(0L);
+        writeAheadLog.append(1L, 5);
+        writeAheadLog.close();
+        Path segment = singleSegment();
+        Files.write(segment, new byte[]{0, 0, 0, 0, 0, 0, 0, 2, 0, 0}, StandardOpenOption.APPEND);
+
+        Map<Long, Integer> replayed = new HashMap<>();
+        long highestSequence = new StockWriteAheadLog(directory, false).replay(0L, replayed::put);
+
+        assertThat(highestSequence, is(equalTo(1L)));
+        assertThat(replayed, is(equalTo(Map.of(1L, 5))));
+    }
+
+    @Test
+    void whenCheckpointCoversSealedSegmentsThenTheyAreDeleted() throws IOException {
+        StockWriteAheadLog writeAheadLog = new StockWriteAheadLog(directory, false);
+        writeAheadLog.open(0L);
+        writeAheadLog.append(1L, 1);
+        long firstCheckpoint = writeAheadLog.rotate();
+        writeAheadLog.append(1L, 1);
+        writeAheadLog.sync();
+
+        writeAheadLog.truncate(firstCheckpoint);
+
+        assertThat(firstCheckpoint, is(equalTo(1L)));
+        Map<Long, Integer> replayed = new HashMap<>();
+        writeAheadLog.replay(0L, replayed::put);
+        assertThat(replayed, is(equalTo(Map.of(1L, 1))));
+        assertThat(singleSegment().getFileName().toString(), is(equalTo("stock-00000000000000000002.wal")));
+        writeAheadLog.close();
+    }
+
+    private Path singleSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.reduce((first, second) -> {
+                throw new IllegalStateException("More than one segment in " + directory);
+            }).orElseThrow();
+        }
+    }
+}
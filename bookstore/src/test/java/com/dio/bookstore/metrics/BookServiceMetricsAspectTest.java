@@ -0,0 +1,61 @@
+package com.dio.bookstore.metrics;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.service.BookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class BookServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BookService bookService;
+
+    private BookService instrumentedBookService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookService = Mockito.mock(BookService.class);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(bookService);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new BookServiceMetricsAspect(meterRegistry));
+        instrumentedBookService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void whenOperationSucceedsThenItIsTimedByName() throws BookNotFoundException {
+        BookDTO bookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        when(bookService.findByTitle(bookDTO.getTitle())).thenReturn(bookDTO);
+
+        instrumentedBookService.findByTitle(bookDTO.getTitle());
+        instrumentedBookService.findByTitle(bookDTO.getTitle());
+
+        assertThat(meterRegistry.get(BookServiceMetricsAspect.TIMER_NAME).tag("operation", "findByTitle").timer().count(), is(equalTo(2L)));
+    }
+
+    @Test
+    void whenOperationThrowsThenTheExceptionTypeIsCounted() throws BookNotFoundException {
+        when(bookService.findByTitle("missing")).thenThrow(new BookNotFoundException("missing"));
+
+        assertThrows(BookNotFoundException.class, () -> instrumentedBookService.findByTitle("missing"));
+
+        assertThat(meterRegistry.get(BookServiceMetricsAspect.EXCEPTION_COUNTER_NAME)
+                .tag("operation", "findByTitle")
+                .tag("exception", "BookNotFoundException")
+                .counter()
+                .count(), is(equalTo(1.0)));
+        assertThat(meterRegistry.get(BookServiceMetricsAspect.TIMER_NAME).tag("operation", "findByTitle").timer().count(), is(equalTo(1L)));
+    }
+}
@@ -0,0 +1,160 @@
+package com.dio.bookstore.replenishment;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.event.LowStockEvent;
+import com.dio.bookstore.service.BookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LowStockTrackerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<LowStockEvent> published;
+    private BookService bookService;
+    private LowStockTracker lowStockTracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        published = new ArrayList<>();
+        bookService = mock(BookService.class);
+        lowStockTracker = new LowStockTracker(event -> published.add((LowStockEvent) event), bookService, meterRegistry, 0.2, Runnable::run);
+    }
+
+    @Test
+    void whenStockCrossesTheThresholdThenTheBookEntersAndLeavesTheSetWithOneEventEach() {
+        lowStockTracker.load(List.of());
+        BookDTO low = BookDTOBuilder.builder().quantity(1).build().toBookDTO();
+        BookDTO empty = BookDTOBuilder.builder().quantity(0).build().toBookDTO();
+        BookDTO restocked = BookDTOBuilder.builder().quantity(2).build().toBookDTO();
+
+        changed(low, -1);
+        changed(empty, -1);
+        assertThat(lowStockTracker.list(0L, 10), contains(empty));
+
+        changed(restocked, 2);
+        assertThat(lowStockTracker.list(0L, 10), is(empty()));
+
+        assertThat(published, hasSize(2));
+        assertThat(published.get(0).isLow(), is(true));
+        assertThat(published.get(1).isLow(), is(false));
+        assertThat(published.get(1).getBook(), is(equalTo(restocked)));
+        assertThat(meterRegistry.get("bookstore.stock.low.crossings").tag("direction", "low").counter().count(), is(equalTo(1.0)));
+    }
+
+    @Test
+    void whenEventsArriveOutOfOrderThenTheCurrentStockDecides() {
+        lowStockTracker.load(List.of());
+        BookDTO low = BookDTOBuilder.builder().quantity(1).build().toBookDTO();
+        BookDTO restocked = BookDTOBuilder.builder().quantity(9).build().toBookDTO();
+        BookDTO lowAgain = BookDTOBuilder.builder().quantity(0).build().toBookDTO();
+        when(bookService.findCurrent(low.getId())).thenReturn(Optional.of(restocked));
+
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, restocked, 8));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, low, -1));
+        assertThat(lowStockTracker.list(0L, 10), is(empty()));
+
+        when(bookService.findCurrent(low.getId())).thenReturn(Optional.of(lowAgain));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, lowAgain, -9));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, restocked, 8));
+        assertThat(lowStockTracker.list(0L, 10), contains(lowAgain));
+        assertThat(published, hasSize(1));
+    }
+
+    @Test
+    void whenABookChangesWhileItsReadIsQueuedThenItIsReadOnceOffTheCommittingThread() {
+        List<Runnable> queued = new ArrayList<>();
+        lowStockTracker = new LowStockTracker(event -> published.add((LowStockEvent) event), bookService, meterRegistry, 0.2, queued::add);
+        lowStockTracker.load(List.of());
+        BookDTO low = BookDTOBuilder.builder().quantity(1).build().toBookDTO();
+        BookDTO empty = BookDTOBuilder.builder().quantity(0).build().toBookDTO();
+        when(bookService.findCurrent(low.getId())).thenReturn(Optional.of(empty));
+
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, low, -1));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, empty, -1));
+        verify(bookService, never()).findCurrent(low.getId());
+        assertThat(queued, hasSize(1));
+
+        queued.get(0).run();
+
+        verify(bookService, times(1)).findCurrent(low.getId());
+        assertThat(lowStockTracker.list(0L, 10), contains(empty));
+    }
+
+    @Test
+    void whenABookIsDeletedWhileItsReadIsQueuedThenTheDeletionIsAppliedAfterTheRead() {
+        List<Runnable> queued = new ArrayList<>();
+        lowStockTracker = new LowStockTracker(event -> published.add((LowStockEvent) event), bookService, meterRegistry, 0.2, queued::add);
+        lowStockTracker.load(List.of());
+        BookDTO low = BookDTOBuilder.builder().quantity(1).build().toBookDTO();
+        when(bookService.findCurrent(low.getId())).thenReturn(Optional.of(low));
+
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, low, -1));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, low));
+        queued.forEach(Runnable::run);
+
+        assertThat(lowStockTracker.list(0L, 10), is(empty()));
+    }
+
+    @Test
+    void whenLimitIsNotPositiveThenOnePageOfOneIsListed() {
+        BookDTO first = BookDTOBuilder.builder().id(1L).quantity(0).build().toBookDTO();
+        BookDTO second = BookDTOBuilder.builder().id(2L).title("Segundo").quantity(0).build().toBookDTO();
+        lowStockTracker.load(List.of(first, second));
+
+        assertThat(lowStockTracker.list(0L, -5), contains(first));
+        assertThat(lowStockTracker.list(0L, 0), contains(first));
+    }
+
+    @Test
+    void whenLoadedThenLowBooksAreListedInIdOrderAfterTheGivenId() {
+        BookDTO first = BookDTOBuilder.builder().id(1L).quantity(0).build().toBookDTO();
+        BookDTO stocked = BookDTOBuilder.builder().id(2L).title("Estocado").quantity(8).build().toBookDTO();
+        BookDTO third = BookDTOBuilder.builder().id(3L).title("Terceiro").quantity(1).build().toBookDTO();
+
+        lowStockTracker.load(List.of(third, stocked, first));
+
+        assertThat(lowStockTracker.list(0L, 10), contains(first, third));
+        assertThat(lowStockTracker.list(1L, 10), contains(third));
+        assertThat(lowStockTracker.list(0L, 1), contains(first));
+        assertThat(published, is(empty()));
+    }
+
+    @Test
+    void whenBookChangesBeforeTheLoadThenItsEventWins() {
+        BookDTO staleLow = BookDTOBuilder.builder().id(1L).quantity(0).build().toBookDTO();
+        BookDTO restocked = BookDTOBuilder.builder().id(1L).quantity(9).build().toBookDTO();
+        BookDTO deleted = BookDTOBuilder.builder().id(2L).title("Apagado").quantity(0).build().toBookDTO();
+
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, restocked, 9));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, deleted));
+        lowStockTracker.load(List.of(staleLow, deleted));
+
+        assertThat(lowStockTracker.list(0L, 10), is(empty()));
+    }
+
+    private void changed(BookDTO book, int delta) {
+        when(bookService.findCurrent(book.getId())).thenReturn(Optional.of(book));
+        lowStockTracker.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, book, delta));
+    }
+}
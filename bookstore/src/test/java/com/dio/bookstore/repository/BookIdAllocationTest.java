@@ -0,0 +1,39 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.mapper.BookMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(properties = "bookstore.id.allocation-size=10")
+public class BookIdAllocationTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookImportJdbcRepository bookImportJdbcRepository;
+
+    @Test
+    void whenAllocationSizeIsConfiguredThenHibernateAndTheImporterShareTheSameBlocks() {
+        Book first = bookRepository.save(newBook("Allocation One"));
+        Book second = bookRepository.save(newBook("Allocation Two"));
+
+        long[] importedIds = bookImportJdbcRepository.allocateIds(12);
+
+        assertThat(second.getId(), is(equalTo(first.getId() + 1)));
+        assertThat(importedIds[0], is(equalTo(first.getId() + 10)));
+        assertThat(importedIds[9], is(equalTo(first.getId() + 19)));
+        assertThat(importedIds[10], is(equalTo(first.getId() + 20)));
+    }
+
+    private static Book newBook(String title) {
+        return BookMapper.INSTANCE.toModel(BookDTOBuilder.builder().id(null).title(title).build().toBookDTO());
+    }
+}
@@ -0,0 +1,104 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.mapper.BookMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@DataJpaTest
+public class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private BookMapper bookMapper = BookMapper.INSTANCE;
+
+    private Book savedBook;
+
+    @BeforeEach
+    void setUp() {
+        Book book = bookMapper.toModel(BookDTOBuilder.builder().id(null).build().toBookDTO());
+        savedBook = bookRepository.save(book);
+    }
+
+    @Test
+    void whenIncrementFitsMaxThenQuantityIsUpdated() {
+        int updatedRows = bookRepository.incrementQuantity(savedBook.getId(), 8);
+
+        assertThat(updatedRows, is(equalTo(1)));
+        assertThat(bookRepository.findById(savedBook.getId()).get().getQuantity(), is(equalTo(10)));
+    }
+
+    @Test
+    void whenIncrementExceedsMaxThenNoRowIsUpdated() {
+        int updatedRows = bookRepository.incrementQuantity(savedBook.getId(), 9);
+
+        assertThat(updatedRows, is(equalTo(0)));
+        assertThat(bookRepository.findById(savedBook.getId()).get().getQuantity(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenDecrementFitsStockThenQuantityIsUpdated() {
+        int updatedRows = bookRepository.decrementQuantity(savedBook.getId(), 2);
+
+        assertThat(updatedRows, is(equalTo(1)));
+        assertThat(bookRepository.findById(savedBook.getId()).get().getQuantity(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenDecrementIsLowerThanZeroThenNoRowIsUpdated() {
+        int updatedRows = bookRepository.decrementQuantity(savedBook.getId(), 3);
+
+        assertThat(updatedRows, is(equalTo(0)));
+        assertThat(bookRepository.findById(savedBook.getId()).get().getQuantity(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenIdIsUnknownThenNoRowIsUpdated() {
+        assertThat(bookRepository.incrementQuantity(savedBook.getId() + 1, 1), is(equalTo(0)));
+        assertThat(bookRepository.decrementQuantity(savedBook.getId() + 1, 1), is(equalTo(0)));
+    }
+
+    @Test
+    void whenKeysetPageIsRequestedThenBooksAfterTheGivenIdAreReturnedInOrder() {
+        Book secondBook = bookRepository.save(bookMapper.toModel(BookDTOBuilder.builder().id(null).title("O Hobbit").build().toBookDTO()));
+        Book thirdBook = bookRepository.save(bookMapper.toModel(BookDTOBuilder.builder().id(null).title("O Silmarillion").build().toBookDTO()));
+
+        List<Book> page = bookRepository.findByIdGreaterThanOrderByIdAsc(savedBook.getId(), PageRequest.of(0, 1));
+
+        assertThat(page, contains(secondBook));
+        assertThat(bookRepository.findByIdGreaterThanOrderByIdAsc(secondBook.getId(), PageRequest.of(0, 10)), contains(thirdBook));
+    }
+
+    @Test
+    void whenAuthorAndGenreAreGivenThenOnlyMatchingBooksAreReturned() {
+        Book sameAuthorOtherGenre = bookRepository.save(bookMapper.toModel(BookDTOBuilder.builder().id(null).title("A Queda de Gondolin").genre(BookType.Poetry).build().toBookDTO()));
+        bookRepository.save(bookMapper.toModel(BookDTOBuilder.builder().id(null).title("Duna").author("Frank Herbert").genre(BookType.SciFi).build().toBookDTO()));
+
+        PageRequest page = PageRequest.of(0, 10);
+
+        assertThat(bookRepository.findByAuthorAndIdGreaterThanOrderByIdAsc(savedBook.getAuthor(), 0L, page), contains(savedBook, sameAuthorOtherGenre));
+        assertThat(bookRepository.findByGenreAndIdGreaterThanOrderByIdAsc(BookType.Poetry, 0L, page), contains(sameAuthorOtherGenre));
+        assertThat(bookRepository.findByAuthorAndGenreAndIdGreaterThanOrderByIdAsc(savedBook.getAuthor(), BookType.Fantasy, 0L, page), contains(savedBook));
+    }
+
+    @Test
+    void whenTitlesAreQueriedTogetherThenOnlyExistingOnesAreReturned() {
+        List<Book> books = bookRepository.findByTitleIn(Arrays.asList(savedBook.getTitle(), "Unknown Title"));
+
+        assertThat(books, contains(savedBook));
+    }
+}
@@ -0,0 +1,50 @@
+package com.dio.bookstore.repository;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.mapper.BookMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@DataJpaTest
+@Import(BookStockJdbcRepository.class)
+public class BookStockJdbcRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookStockJdbcRepository bookStockJdbcRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private BookMapper bookMapper = BookMapper.INSTANCE;
+
+    @Test
+    void whenBatchIsAppliedThenOnlyAdjustmentsWithinLimitsUpdateRows() {
+        Book book = bookRepository.saveAndFlush(bookMapper.toModel(BookDTOBuilder.builder().id(null).build().toBookDTO()));
+
+        int[] updatedRows = bookStockJdbcRepository.adjustQuantities(Arrays.asList(
+                new StockAdjustmentDTO(book.getId(), 5),
+                new StockAdjustmentDTO(book.getId(), 5),
+                new StockAdjustmentDTO(book.getId(), -7),
+                new StockAdjustmentDTO(book.getId(), -1),
+                new StockAdjustmentDTO(book.getId() + 1, 1)));
+
+        testEntityManager.clear();
+
+        assertThat(updatedRows, is(equalTo(new int[]{1, 0, 1, 0, 0})));
+        assertThat(bookRepository.findById(book.getId()).get().getQuantity(), is(equalTo(0)));
+    }
+}
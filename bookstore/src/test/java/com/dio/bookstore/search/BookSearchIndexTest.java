@@ -0,0 +1,109 @@
+package com.dio.bookstore.search;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.event.BookChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex bookSearchIndex;
+
+    private BookDTO senhorDosAneis;
+    private BookDTO hobbit;
+    private BookDTO duna;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchIndex = new BookSearchIndex();
+        senhorDosAneis = BookDTOBuilder.builder().id(1L).build().toBookDTO();
+        hobbit = BookDTOBuilder.builder().id(2L).title("O Hobbit").build().toBookDTO();
+        duna = BookDTOBuilder.builder().id(3L).title("Duna").author("Frank Herbert").build().toBookDTO();
+        bookSearchIndex.index(senhorDosAneis);
+        bookSearchIndex.index(hobbit);
+        bookSearchIndex.index(duna);
+    }
+
+    @Test
+    void whenPrefixOfATitleWordIsGivenThenMatchingBooksAreReturned() {
+        assertThat(bookSearchIndex.search("hob", 10), contains(hobbit.getId()));
+        assertThat(bookSearchIndex.search("aneis", 10), contains(senhorDosAneis.getId()));
+    }
+
+    @Test
+    void whenAuthorIsGivenThenTitleMatchesRankAboveAuthorMatches() {
+        BookDTO herbertBiography = BookDTOBuilder.builder().id(4L).title("Herbert").author("Brian Herbert").build().toBookDTO();
+        bookSearchIndex.index(herbertBiography);
+
+        assertThat(bookSearchIndex.search("herbert", 10), contains(herbertBiography.getId(), duna.getId()));
+    }
+
+    @Test
+    void whenSeveralTokensAreGivenThenAllOfThemMustMatch() {
+        assertThat(bookSearchIndex.search("tolk hob", 10), contains(hobbit.getId()));
+        assertThat(bookSearchIndex.search("tolkien duna", 10), is(empty()));
+    }
+
+    @Test
+    void whenQueryHasAccentsOrCaseDifferencesThenTheyAreIgnored() {
+        assertThat(bookSearchIndex.search("ANÉIS", 10), contains(senhorDosAneis.getId()));
+    }
+
+    @Test
+    void whenBookIsDeletedThenItIsNoLongerFound() {
+        bookSearchIndex.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, hobbit));
+
+        assertThat(bookSearchIndex.search("hobbit", 10), is(empty()));
+    }
+
+    @Test
+    void whenBooksAreLoadedThenBooksIndexedSinceAreKept() {
+        BookDTO staleHobbit = BookDTOBuilder.builder().id(2L).title("Hobbit antigo").build().toBookDTO();
+        BookDTO silmarillion = BookDTOBuilder.builder().id(5L).title("O Silmarillion").build().toBookDTO();
+
+        bookSearchIndex.load(List.of(staleHobbit, silmarillion));
+
+        assertThat(bookSearchIndex.search("hobbit", 10), contains(hobbit.getId()));
+        assertThat(bookSearchIndex.search("antigo", 10), is(empty()));
+        assertThat(bookSearchIndex.search("silmarillion", 10), contains(silmarillion.getId()));
+    }
+
+    @Test
+    void whenBookIsDeletedBeforeTheLoadThenTheLoadLeavesItOut() {
+        bookSearchIndex.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, hobbit));
+
+        bookSearchIndex.load(List.of(hobbit));
+
+        assertThat(bookSearchIndex.search("hobbit", 10), is(empty()));
+    }
+
+    @Test
+    void whenAnEventArrivesAfterTheDeletionThenTheBookStaysOut() {
+        bookSearchIndex.onBookChanged(new BookChangedEvent(BookChangeType.DELETED, hobbit));
+
+        bookSearchIndex.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, hobbit, 1));
+        bookSearchIndex.onBookChanged(new BookChangedEvent(BookChangeType.CREATED, hobbit));
+
+        assertThat(bookSearchIndex.search("hobbit", 10), is(empty()));
+        assertThat(bookSearchIndex.size(), is(2));
+    }
+
+    @Test
+    void whenStockChangesThenTheIndexIsNotTouched() {
+        BookDTO renamed = BookDTOBuilder.builder().id(3L).title("Outro").build().toBookDTO();
+
+        bookSearchIndex.onBookChanged(new BookChangedEvent(BookChangeType.STOCK_CHANGED, renamed, 1));
+
+        assertThat(bookSearchIndex.search("duna", 10), contains(duna.getId()));
+        assertThat(bookSearchIndex.search("outro", 10), is(empty()));
+    }
+}
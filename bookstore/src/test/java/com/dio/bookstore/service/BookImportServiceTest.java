@@ -0,0 +1,105 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookImportErrorDTO;
+import com.dio.bookstore.dto.BookImportProgressDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.ImportFormat;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest(properties = "bookstore.import.chunk-size=3")
+public class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void whenCsvIsImportedThenValidRowsAreInsertedAndRejectedRowsAreReported() throws IOException {
+        bookRepository.save(BookMapper.INSTANCE.toModel(BookDTOBuilder.builder().id(null).title("Already There").build().toBookDTO()));
+        String csv = "title,author,max,quantity,genre\n"
+                + "Import One,Author A,10,2,Fantasy\n"
+                + "Already There,Author B,10,2,Horror\n"
+                + "Import Two,Author A,50,2,Fantasy\n"
+                + "\n"
+                + "Import Three,Author C,10,3,NotAGenre\n"
+                + "Import One,Author A,10,2,Fantasy\n"
+                + "Import Four,Author D,5,5,Poetry\n";
+
+        List<BookImportProgressDTO> reports = new ArrayList<>();
+        BookImportProgressDTO result = bookImportService.importBooks(stream(csv), ImportFormat.CSV, reports::add);
+
+        assertThat(result.isDone(), is(true));
+        assertThat(result.getProcessed(), is(equalTo(6L)));
+        assertThat(result.getImported(), is(equalTo(2L)));
+        assertThat(result.getDuplicates(), is(equalTo(2L)));
+        assertThat(result.getFailed(), is(equalTo(2L)));
+        assertThat(reports, hasSize(3));
+        List<Long> rejectedLines = reports.stream()
+                .flatMap(report -> report.getErrors().stream())
+                .map(BookImportErrorDTO::getLine)
+                .collect(Collectors.toList());
+        assertThat(rejectedLines, contains(3L, 4L, 6L, 7L));
+        assertThat(bookRepository.findByTitle("Import One").isPresent(), is(true));
+        assertThat(bookRepository.findByTitle("Import Four").isPresent(), is(true));
+        assertThat(bookRepository.findByTitle("Import Two").isPresent(), is(false));
+    }
+
+    @Test
+    void whenCsvFieldsAreQuotedThenCommasQuotesAndLineBreaksStayInTheValue() throws IOException {
+        String csv = "title,author,max,quantity,genre\n"
+                + "\"Quoted, With Comma\",\"Author \"\"Q\"\"\",10,2,Fantasy\n"
+                + "\"Quoted\nOver Lines\",Author R,10,11,Fantasy\n"
+                + "Quoted After,Author S,10,1,Horror\n";
+
+        List<BookImportProgressDTO> reports = new ArrayList<>();
+        BookImportProgressDTO result = bookImportService.importBooks(stream(csv), ImportFormat.CSV, reports::add);
+
+        assertThat(result.getImported(), is(equalTo(2L)));
+        assertThat(result.getFailed(), is(equalTo(1L)));
+        assertThat(bookRepository.findByTitle("Quoted, With Comma").orElseThrow().getAuthor(), is(equalTo("Author \"Q\"")));
+        assertThat(reports.get(0).getErrors().get(0).getLine(), is(equalTo(3L)));
+        assertThat(reports.get(0).getErrors().get(0).getTitle(), is(equalTo("Quoted\nOver Lines")));
+        assertThat(bookRepository.findByTitle("Quoted After").isPresent(), is(true));
+    }
+
+    @Test
+    void whenNdjsonIsImportedThenIdsDoNotCollideWithEntityManagerIds() throws IOException {
+        String ndjson = IntStream.range(0, 60)
+                .mapToObj(i -> String.format("{\"title\":\"Bulk %d\",\"author\":\"Bulk Author\",\"max\":10,\"quantity\":1,\"genre\":\"History\"}", i))
+                .collect(Collectors.joining("\n"));
+
+        BookImportProgressDTO result = bookImportService.importBooks(stream(ndjson), ImportFormat.NDJSON, progress -> { });
+        Book savedAfterImport = bookRepository.save(BookMapper.INSTANCE.toModel(BookDTOBuilder.builder().id(null).title("After Bulk").build().toBookDTO()));
+
+        assertThat(result.getImported(), is(equalTo(60L)));
+        Set<Long> importedIds = bookRepository.findAll().stream()
+                .filter(book -> book.getTitle().startsWith("Bulk "))
+                .map(Book::getId)
+                .collect(Collectors.toSet());
+        assertThat(importedIds, hasSize(60));
+        assertThat(importedIds, not(hasItem(savedAfterImport.getId())));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,25 +1,45 @@
 package com.dio.bookstore.service;
 
 import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.cache.BookTitleCache;
+import com.dio.bookstore.dto.BatchGetItemDTO;
+import com.dio.bookstore.dto.BatchGetResultDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentDTO;
+import com.dio.bookstore.dto.BatchStockAdjustmentResultDTO;
 import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.dto.StockAdjustmentDTO;
 import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BatchMode;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.enums.StockAdjustmentStatus;
+import com.dio.bookstore.event.BookChangedEvent;
 import com.dio.bookstore.exceptions.BookAlreadyRegisteredException;
 import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockConflictException;
 import com.dio.bookstore.exceptions.BookStockExceededException;
 import com.dio.bookstore.mapper.BookMapper;
-import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.search.BookSearchIndex;
+import com.dio.bookstore.store.BookStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -34,7 +54,19 @@ public class BookServiceTest {
     private static final long INVALID_BOOK_ID = 1L;
 
     @Mock
-    private BookRepository bookRepository;
+    private BookStore bookStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockUpdater stockUpdater;
+
+    @Spy
+    private BookTitleCache bookTitleCache = new BookTitleCache(100, new SimpleMeterRegistry());
+
+    @Spy
+    private BookSearchIndex bookSearchIndex = new BookSearchIndex();
 
     private BookMapper bookMapper = BookMapper.INSTANCE;
 
@@ -46,8 +78,8 @@ public class BookServiceTest {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedSavedBook = bookMapper.toModel(expectedBookDTO);
 
-        Mockito.when(bookRepository.findByTitle(expectedBookDTO.getTitle())).thenReturn(Optional.empty());
-        Mockito.when(bookRepository.save(expectedSavedBook)).thenReturn(expectedSavedBook);
+        Mockito.when(bookStore.findByTitle(expectedBookDTO.getTitle())).thenReturn(Optional.empty());
+        Mockito.when(bookStore.save(expectedSavedBook)).thenReturn(expectedSavedBook);
 
         BookDTO createdBookDTO = bookService.createBook(expectedBookDTO);
 
@@ -63,28 +95,61 @@ public class BookServiceTest {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book duplicatedBook = bookMapper.toModel(expectedBookDTO);
 
-        Mockito.when(bookRepository.findByTitle(expectedBookDTO.getTitle())).thenReturn(Optional.of(duplicatedBook));
+        Mockito.when(bookStore.findByTitle(expectedBookDTO.getTitle())).thenReturn(Optional.of(duplicatedBook));
 
         assertThrows(BookAlreadyRegisteredException.class, () -> bookService.createBook(expectedBookDTO));
     }
 
+    @Test
+    void whenSearchMatchesThenLiveBooksAreReturnedInRankOrder() {
+        BookDTO hobbit = BookDTOBuilder.builder().id(2L).title("O Hobbit").build().toBookDTO();
+        BookDTO hobbitIlustrado = BookDTOBuilder.builder().id(3L).title("O Hobbit Ilustrado").build().toBookDTO();
+        BookDTO hobbitAnotado = BookDTOBuilder.builder().id(4L).title("O Hobbit Anotado").build().toBookDTO();
+        bookSearchIndex.index(hobbit);
+        bookSearchIndex.index(hobbitIlustrado);
+        bookSearchIndex.index(hobbitAnotado);
+        Book liveHobbit = bookMapper.toModel(hobbit);
+        liveHobbit.setQuantity(3);
+
+        when(bookStore.findAllById(List.of(2L, 4L, 3L))).thenReturn(List.of(bookMapper.toModel(hobbitIlustrado), liveHobbit));
+        when(stockUpdater.current(Mockito.any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookDTO> found = bookService.search("hobbit", 10);
+
+        assertThat(found, contains(bookMapper.toDTO(liveHobbit), hobbitIlustrado));
+    }
+
     @Test
     void whenValidBooksTitleIsGivenThenReturnABook() throws BookNotFoundException {
         BookDTO expectedFoundBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedFoundBook = bookMapper.toModel(expectedFoundBookDTO);
 
-        when(bookRepository.findByTitle(expectedFoundBook.getTitle())).thenReturn(Optional.of(expectedFoundBook));
+        when(bookStore.findByTitle(expectedFoundBook.getTitle())).thenReturn(Optional.of(expectedFoundBook));
+
+        BookDTO foundBookDTO = bookService.findByTitle(expectedFoundBookDTO.getTitle());
+
+        assertThat(foundBookDTO, is(equalTo(expectedFoundBookDTO)));
+    }
+
+    @Test
+    void whenSameTitleIsGivenTwiceThenTheSecondLookupIsServedFromCache() throws BookNotFoundException {
+        BookDTO expectedFoundBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedFoundBook = bookMapper.toModel(expectedFoundBookDTO);
+
+        when(bookStore.findByTitle(expectedFoundBook.getTitle())).thenReturn(Optional.of(expectedFoundBook));
 
+        bookService.findByTitle(expectedFoundBookDTO.getTitle());
         BookDTO foundBookDTO = bookService.findByTitle(expectedFoundBookDTO.getTitle());
 
         assertThat(foundBookDTO, is(equalTo(expectedFoundBookDTO)));
+        verify(bookStore, times(1)).findByTitle(expectedFoundBookDTO.getTitle());
     }
 
     @Test
     void whenNoRegisteredBookTitleIsGivenThenThrowsAnException() {
         BookDTO expectedFoundBookDTO = BookDTOBuilder.builder().build().toBookDTO();
 
-        when(bookRepository.findByTitle(expectedFoundBookDTO.getTitle())).thenReturn(Optional.empty());
+        when(bookStore.findByTitle(expectedFoundBookDTO.getTitle())).thenReturn(Optional.empty());
 
         assertThrows(BookNotFoundException.class, () -> bookService.findByTitle(expectedFoundBookDTO.getTitle()));
 
@@ -95,7 +160,7 @@ public class BookServiceTest {
         BookDTO expectedFoundBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedFoundBook = bookMapper.toModel(expectedFoundBookDTO);
 
-        when(bookRepository.findAll()).thenReturn(Collections.singletonList(expectedFoundBook));
+        when(bookStore.findAll()).thenReturn(Collections.singletonList(expectedFoundBook));
 
         List<BookDTO> foundListBooksDTO = bookService.listAll();
 
@@ -107,130 +172,232 @@ public class BookServiceTest {
     @Test
     void whenListOfBookIsCalledThenReturnAnEmptyListOfBooks() {
 
-        when(bookRepository.findAll()).thenReturn(Collections.EMPTY_LIST);
+        when(bookStore.findAll()).thenReturn(Collections.EMPTY_LIST);
 
         List<BookDTO> foundListBooksDTO = bookService.listAll();
 
         assertThat(foundListBooksDTO, is(empty()));
     }
 
+    @Test
+    void whenPageOfBookIsCalledThenReturnBooksAfterTheGivenId() {
+        BookDTO expectedFoundBookDTO = BookDTOBuilder.builder().id(11L).build().toBookDTO();
+        Book expectedFoundBook = bookMapper.toModel(expectedFoundBookDTO);
+
+        when(bookStore.findPage(null, null, 10L, BookService.MAX_PAGE_LIMIT))
+                .thenReturn(Collections.singletonList(expectedFoundBook));
+
+        List<BookDTO> foundListBooksDTO = bookService.listPage(null, null, 10L, Integer.MAX_VALUE);
+
+        assertThat(foundListBooksDTO, is(equalTo(Collections.singletonList(expectedFoundBookDTO))));
+    }
+
+    @Test
+    void whenPageOfBookIsFilteredByAuthorAndGenreThenBothFiltersReachTheStore() {
+        BookDTO expectedFoundBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedFoundBook = bookMapper.toModel(expectedFoundBookDTO);
+
+        when(bookStore.findPage(expectedFoundBook.getAuthor(), expectedFoundBook.getGenre(), 0L, 20))
+                .thenReturn(Collections.singletonList(expectedFoundBook));
+
+        List<BookDTO> foundListBooksDTO = bookService.listPage(expectedFoundBook.getAuthor(), expectedFoundBook.getGenre(), null, 20);
+
+        assertThat(foundListBooksDTO, is(equalTo(Collections.singletonList(expectedFoundBookDTO))));
+    }
+
+    @Test
+    void whenFilteredStreamIsCalledThenMatchingBooksAreReadPageByPage() {
+        List<Book> firstPage = LongStream.rangeClosed(1, BookService.MAX_PAGE_LIMIT)
+                .mapToObj(id -> bookMapper.toModel(BookDTOBuilder.builder().id(id).build().toBookDTO()))
+                .collect(Collectors.toList());
+        Book last = bookMapper.toModel(BookDTOBuilder.builder().id(5000L).build().toBookDTO());
+
+        when(bookStore.findPage("J.R.R. Tolkien", null, 0L, BookService.MAX_PAGE_LIMIT)).thenReturn(firstPage);
+        when(bookStore.findPage("J.R.R. Tolkien", null, (long) BookService.MAX_PAGE_LIMIT, BookService.MAX_PAGE_LIMIT))
+                .thenReturn(Collections.singletonList(last));
+
+        List<BookDTO> streamed = new ArrayList<>();
+        bookService.streamPage("J.R.R. Tolkien", null, null, null, streamed::add);
+
+        assertThat(streamed, hasSize(BookService.MAX_PAGE_LIMIT + 1));
+        assertThat(streamed.get(BookService.MAX_PAGE_LIMIT), is(equalTo(bookMapper.toDTO(last))));
+    }
+
+    @Test
+    void whenFilteredStreamHasALimitThenItStopsThere() {
+        Book book = bookMapper.toModel(BookDTOBuilder.builder().id(11L).build().toBookDTO());
+
+        when(bookStore.findPage(null, null, 10L, 1)).thenReturn(Collections.singletonList(book));
+
+        List<BookDTO> streamed = new ArrayList<>();
+        bookService.streamPage(null, null, 10L, 1, streamed::add);
+
+        assertThat(streamed, contains(bookMapper.toDTO(book)));
+        verify(bookStore, times(1)).findPage(Mockito.any(), Mockito.any(), anyLong(), anyInt());
+    }
+
     @Test
     void whenExclusionIsCalledWithIdThenABookShouldBeDeleted() throws BookNotFoundException {
         BookDTO expectedDeletedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedDeletedBook = bookMapper.toModel(expectedDeletedBookDTO);
 
-        when(bookRepository.findById(expectedDeletedBookDTO.getId())).thenReturn(Optional.of(expectedDeletedBook));
-        doNothing().when(bookRepository).deleteById(expectedDeletedBookDTO.getId());
+        when(bookStore.findById(expectedDeletedBookDTO.getId())).thenReturn(Optional.of(expectedDeletedBook));
+        doNothing().when(bookStore).deleteById(expectedDeletedBookDTO.getId());
 
         bookService.deleteById(expectedDeletedBookDTO.getId());
 
-        verify(bookRepository, times(1)).findById(expectedDeletedBookDTO.getId());
-        verify(bookRepository, times(1)).deleteById(expectedDeletedBookDTO.getId());
+        verify(bookStore, times(1)).findById(expectedDeletedBookDTO.getId());
+        verify(bookStore, times(1)).deleteById(expectedDeletedBookDTO.getId());
+
+        ArgumentCaptor<BookChangedEvent> eventCaptor = ArgumentCaptor.forClass(BookChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getType(), is(equalTo(BookChangeType.DELETED)));
+        assertThat(eventCaptor.getValue().getBook(), is(equalTo(expectedDeletedBookDTO)));
     }
 
     @Test
     void whenExclusionIsCalledWithInvalidIdThenExceptionShouldBeThrown() {
-        when(bookRepository.findById(INVALID_BOOK_ID)).thenReturn(Optional.empty());
+        when(bookStore.findById(INVALID_BOOK_ID)).thenReturn(Optional.empty());
 
         assertThrows(BookNotFoundException.class, () -> bookService.deleteById(INVALID_BOOK_ID));
     }
 
     @Test
-    void whenIncrementIsCalledThenIncrementBookStock() throws BookNotFoundException, BookStockExceededException {
-
+    void whenIncrementIsCalledThenIncrementBookStock() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedBook = bookMapper.toModel(expectedBookDTO);
 
-        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
-        when(bookRepository.save(expectedBook)).thenReturn(expectedBook);
-
         int quantityToIncrement = 2;
         int expectedQuantityAfterIncrement = expectedBookDTO.getQuantity() + quantityToIncrement;
-        BookDTO incrementedBookDTO = bookService.increment(expectedBookDTO.getId(), quantityToIncrement);
+        expectedBook.setQuantity(expectedQuantityAfterIncrement);
 
-        assertThat(expectedQuantityAfterIncrement, equalTo(incrementedBookDTO.getQuantity()));
-        assertThat(expectedQuantityAfterIncrement, lessThan(expectedBookDTO.getMax()));
-    }
-
-    @Test
-    void whenIncrementIsGreaterThanMaxThenThrowException() {
-        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
-        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+        when(stockUpdater.adjust(expectedBookDTO.getId(), quantityToIncrement)).thenReturn(expectedBook);
 
-        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+        BookDTO incrementedBookDTO = bookService.increment(expectedBookDTO.getId(), quantityToIncrement);
 
-        int quantityToIncrement = 10;
-        assertThrows(BookStockExceededException.class, () -> bookService.increment(expectedBookDTO.getId(), quantityToIncrement));
+        assertThat(incrementedBookDTO.getQuantity(), is(equalTo(expectedQuantityAfterIncrement)));
+        ArgumentCaptor<BookChangedEvent> eventCaptor = ArgumentCaptor.forClass(BookChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getType(), is(equalTo(BookChangeType.STOCK_CHANGED)));
     }
 
     @Test
-    void whenIncrementAfterSumIsGreaterThanMaxThenThrowException() {
+    void whenIncrementIsGreaterThanMaxThenThrowException() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
-        Book expectedBook = bookMapper.toModel(expectedBookDTO);
 
-        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+        int quantityToIncrement = 10;
+        when(stockUpdater.adjust(expectedBookDTO.getId(), quantityToIncrement))
+                .thenThrow(new BookStockExceededException(expectedBookDTO.getId(), quantityToIncrement));
 
-        int quantityToIncrement = 20;
         assertThrows(BookStockExceededException.class, () -> bookService.increment(expectedBookDTO.getId(), quantityToIncrement));
+        verifyNoInteractions(eventPublisher);
     }
+
     @Test
-    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
         int quantityToIncrement = 2;
 
-        when(bookRepository.findById(INVALID_BOOK_ID)).thenReturn(Optional.empty());
+        when(stockUpdater.adjust(INVALID_BOOK_ID, quantityToIncrement)).thenThrow(new BookNotFoundException(INVALID_BOOK_ID));
 
         assertThrows(BookNotFoundException.class, () -> bookService.increment(INVALID_BOOK_ID, quantityToIncrement));
     }
 
     @Test
-    void whenDecrementIsCalledThenDecrementBookStock() throws BookNotFoundException, BookStockExceededException {
+    void whenDecrementIsCalledThenDecrementBookStock() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedBook = bookMapper.toModel(expectedBookDTO);
 
-        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
-        when(bookRepository.save(expectedBook)).thenReturn(expectedBook);
-
         int quantityToDecrement = 1;
         int expectedQuantityAfterDecrement = expectedBookDTO.getQuantity() - quantityToDecrement;
-        BookDTO incrementedBookDTO = bookService.decrement(expectedBookDTO.getId(), quantityToDecrement);
+        expectedBook.setQuantity(expectedQuantityAfterDecrement);
+
+        when(stockUpdater.adjust(expectedBookDTO.getId(), -quantityToDecrement)).thenReturn(expectedBook);
 
-        assertThat(incrementedBookDTO.getQuantity(), is(equalTo(expectedQuantityAfterDecrement)));
-        assertThat(expectedQuantityAfterDecrement, is(greaterThan(0)));
+        BookDTO decrementedBookDTO = bookService.decrement(expectedBookDTO.getId(), quantityToDecrement);
+
+        assertThat(decrementedBookDTO.getQuantity(), is(equalTo(expectedQuantityAfterDecrement)));
     }
 
     @Test
-    void whenDecrementIsCalledToEmptyStockThenEmptyBookStock() throws BookNotFoundException, BookStockExceededException {
+    void whenDecrementIsLowerThanZeroThenThrowException() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
-        Book expectedBook = bookMapper.toModel(expectedBookDTO);
 
-        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
-        when(bookRepository.save(expectedBook)).thenReturn(expectedBook);
+        int quantityToDecrement = 10;
+        when(stockUpdater.adjust(expectedBookDTO.getId(), -quantityToDecrement))
+                .thenThrow(new BookStockExceededException(expectedBookDTO.getId(), quantityToDecrement));
 
-        int quantityToDecrement = 2;
-        int expectedQuantityAfterDecrement = expectedBookDTO.getQuantity() - quantityToDecrement;
-        BookDTO incrementedBookDTO = bookService.decrement(expectedBookDTO.getId(), quantityToDecrement);
+        assertThrows(BookStockExceededException.class, () -> bookService.decrement(expectedBookDTO.getId(), quantityToDecrement));
+    }
 
-        assertThat(expectedQuantityAfterDecrement, is(equalTo(0)));
-        assertThat(expectedQuantityAfterDecrement, is(equalTo(incrementedBookDTO.getQuantity())));
+    @Test
+    void whenStockUpdateKeepsConflictingThenThrowException() throws BookNotFoundException, BookStockExceededException, BookStockConflictException {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+
+        int quantityToDecrement = 1;
+        when(stockUpdater.adjust(expectedBookDTO.getId(), -quantityToDecrement))
+                .thenThrow(new BookStockConflictException(expectedBookDTO.getId(), 5));
+
+        assertThrows(BookStockConflictException.class, () -> bookService.decrement(expectedBookDTO.getId(), quantityToDecrement));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
-    void whenDecrementIsLowerThanZeroThenThrowException() {
+    void whenBestEffortBatchIsCalledThenEachAdjustmentReportsItsResult() {
         BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
         Book expectedBook = bookMapper.toModel(expectedBookDTO);
+        expectedBook.setQuantity(5);
+
+        List<StockAdjustmentDTO> adjustments = Arrays.asList(
+                new StockAdjustmentDTO(expectedBookDTO.getId(), 4),
+                new StockAdjustmentDTO(expectedBookDTO.getId(), 9),
+                new StockAdjustmentDTO(expectedBookDTO.getId(), -1),
+                new StockAdjustmentDTO(INVALID_BOOK_ID + 1, 1));
+        BatchStockAdjustmentDTO batchDTO = new BatchStockAdjustmentDTO(BatchMode.BEST_EFFORT, adjustments);
+
+        when(bookStore.adjustQuantities(adjustments, false)).thenReturn(new int[]{1, 0, 1, 0});
+        when(bookStore.findAllById(Mockito.anyCollection())).thenReturn(Collections.singletonList(expectedBook));
+
+        BatchStockAdjustmentResultDTO resultDTO = bookService.adjustStock(batchDTO);
+
+        assertThat(resultDTO.isCommitted(), is(true));
+        assertThat(resultDTO.getResults().get(0).getStatus(), is(equalTo(StockAdjustmentStatus.APPLIED)));
+        assertThat(resultDTO.getResults().get(0).getQuantity(), is(equalTo(6)));
+        assertThat(resultDTO.getResults().get(1).getStatus(), is(equalTo(StockAdjustmentStatus.STOCK_EXCEEDED)));
+        assertThat(resultDTO.getResults().get(1).getQuantity(), is(equalTo(6)));
+        assertThat(resultDTO.getResults().get(2).getStatus(), is(equalTo(StockAdjustmentStatus.APPLIED)));
+        assertThat(resultDTO.getResults().get(2).getQuantity(), is(equalTo(5)));
+        assertThat(resultDTO.getResults().get(3).getStatus(), is(equalTo(StockAdjustmentStatus.NOT_FOUND)));
+    }
 
-        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
-
-        int quantityToDecrement = 10;
-        assertThrows(BookStockExceededException.class, () -> bookService.decrement(expectedBookDTO.getId(), quantityToDecrement));
+    @Test
+    void whenBatchGetIsCalledThenResultsFollowRequestOrderAndMissingBooksAreMarked() {
+        Book firstBook = bookMapper.toModel(BookDTOBuilder.builder().id(1L).title("First").build().toBookDTO());
+        Book secondBook = bookMapper.toModel(BookDTOBuilder.builder().id(2L).title("Second").build().toBookDTO());
+
+        when(bookStore.findAllById(Mockito.any())).thenReturn(Arrays.asList(secondBook, firstBook));
+        when(bookStore.findByTitleIn(Mockito.any())).thenReturn(Collections.singletonList(secondBook));
+
+        BatchGetResultDTO result = bookService.batchGet(Arrays.asList(2L, 3L, 1L, 2L), Arrays.asList("Missing", "Second"));
+
+        assertThat(result.getResults().stream().map(BatchGetItemDTO::isFound).collect(Collectors.toList()),
+                contains(true, false, true, true, false, true));
+        assertThat(result.getResults().get(0).getBook().getTitle(), is(equalTo("Second")));
+        assertThat(result.getResults().get(2).getBook().getTitle(), is(equalTo("First")));
+        assertThat(result.getResults().get(1).getBook(), is(nullValue()));
+        assertThat(result.getResults().get(4).getTitle(), is(equalTo("Missing")));
+        verify(bookStore, times(1)).findAllById(Mockito.any());
+        verify(bookStore, times(1)).findByTitleIn(Mockito.any());
+        verify(bookStore, never()).findByTitle(Mockito.any());
     }
 
     @Test
-    void whenDecrementIsCalledWithInvalidIdThenThrowException() {
-        int quantityToDecrement = 5;
+    void whenBatchGetExceedsChunkSizeThenOneQueryIsIssuedPerChunk() {
+        List<Long> ids = LongStream.rangeClosed(1, BookService.BATCH_GET_CHUNK_SIZE + 1).boxed().collect(Collectors.toList());
 
-        when(bookRepository.findById(INVALID_BOOK_ID)).thenReturn(Optional.empty());
+        BatchGetResultDTO result = bookService.batchGet(ids, Collections.emptyList());
 
-        assertThrows(BookNotFoundException.class, () -> bookService.decrement(INVALID_BOOK_ID, quantityToDecrement));
+        assertThat(result.getResults(), hasSize(ids.size()));
+        verify(bookStore, times(2)).findAllById(Mockito.any());
+        verify(bookStore, never()).findByTitleIn(Mockito.any());
     }
 }
@@ -0,0 +1,151 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.store.JpaBookStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConditionalStockUpdaterTest {
+    private static final long INVALID_BOOK_ID = 1L;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookMapper bookMapper = BookMapper.INSTANCE;
+
+    private ConditionalStockUpdater conditionalStockUpdater;
+
+    @BeforeEach
+    void setUp() {
+        conditionalStockUpdater = new ConditionalStockUpdater(new JpaBookStore(bookRepository, null, null, null, null));
+    }
+
+    @Test
+    void whenIncrementIsCalledThenIncrementBookStock() throws BookNotFoundException, BookStockExceededException {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+
+        int quantityToIncrement = 2;
+        int expectedQuantityAfterIncrement = expectedBookDTO.getQuantity() + quantityToIncrement;
+        expectedBook.setQuantity(expectedQuantityAfterIncrement);
+
+        when(bookRepository.incrementQuantity(expectedBookDTO.getId(), quantityToIncrement)).thenReturn(1);
+        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+
+        Book adjustedBook = conditionalStockUpdater.adjust(expectedBookDTO.getId(), quantityToIncrement);
+
+        assertThat(expectedQuantityAfterIncrement, equalTo(adjustedBook.getQuantity()));
+        assertThat(expectedQuantityAfterIncrement, lessThan(expectedBookDTO.getMax()));
+        verify(bookRepository, never()).save(Mockito.any(Book.class));
+    }
+
+    @Test
+    void whenIncrementIsGreaterThanMaxThenThrowException() {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+
+        int quantityToIncrement = 10;
+        when(bookRepository.incrementQuantity(expectedBookDTO.getId(), quantityToIncrement)).thenReturn(0);
+        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+
+        assertThrows(BookStockExceededException.class, () -> conditionalStockUpdater.adjust(expectedBookDTO.getId(), quantityToIncrement));
+    }
+
+    @Test
+    void whenIncrementAfterSumIsGreaterThanMaxThenThrowException() {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+
+        int quantityToIncrement = 20;
+        when(bookRepository.incrementQuantity(expectedBookDTO.getId(), quantityToIncrement)).thenReturn(0);
+        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+
+        assertThrows(BookStockExceededException.class, () -> conditionalStockUpdater.adjust(expectedBookDTO.getId(), quantityToIncrement));
+    }
+    @Test
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+        int quantityToIncrement = 2;
+
+        when(bookRepository.incrementQuantity(INVALID_BOOK_ID, quantityToIncrement)).thenReturn(0);
+        when(bookRepository.findById(INVALID_BOOK_ID)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> conditionalStockUpdater.adjust(INVALID_BOOK_ID, quantityToIncrement));
+    }
+
+    @Test
+    void whenDecrementIsCalledThenDecrementBookStock() throws BookNotFoundException, BookStockExceededException {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+
+        int quantityToDecrement = 1;
+        int expectedQuantityAfterDecrement = expectedBookDTO.getQuantity() - quantityToDecrement;
+        expectedBook.setQuantity(expectedQuantityAfterDecrement);
+
+        when(bookRepository.decrementQuantity(expectedBookDTO.getId(), quantityToDecrement)).thenReturn(1);
+        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+
+        Book adjustedBook = conditionalStockUpdater.adjust(expectedBookDTO.getId(), -quantityToDecrement);
+
+        assertThat(adjustedBook.getQuantity(), is(equalTo(expectedQuantityAfterDecrement)));
+        assertThat(expectedQuantityAfterDecrement, is(greaterThan(0)));
+        verify(bookRepository, never()).save(Mockito.any(Book.class));
+    }
+
+    @Test
+    void whenDecrementIsCalledToEmptyStockThenEmptyBookStock() throws BookNotFoundException, BookStockExceededException {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+
+        int quantityToDecrement = 2;
+        int expectedQuantityAfterDecrement = expectedBookDTO.getQuantity() - quantityToDecrement;
+        expectedBook.setQuantity(expectedQuantityAfterDecrement);
+
+        when(bookRepository.decrementQuantity(expectedBookDTO.getId(), quantityToDecrement)).thenReturn(1);
+        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+
+        Book adjustedBook = conditionalStockUpdater.adjust(expectedBookDTO.getId(), -quantityToDecrement);
+
+        assertThat(expectedQuantityAfterDecrement, is(equalTo(0)));
+        assertThat(expectedQuantityAfterDecrement, is(equalTo(adjustedBook.getQuantity())));
+    }
+
+    @Test
+    void whenDecrementIsLowerThanZeroThenThrowException() {
+        BookDTO expectedBookDTO = BookDTOBuilder.builder().build().toBookDTO();
+        Book expectedBook = bookMapper.toModel(expectedBookDTO);
+
+        int quantityToDecrement = 10;
+        when(bookRepository.decrementQuantity(expectedBookDTO.getId(), quantityToDecrement)).thenReturn(0);
+        when(bookRepository.findById(expectedBookDTO.getId())).thenReturn(Optional.of(expectedBook));
+
+        assertThrows(BookStockExceededException.class, () -> conditionalStockUpdater.adjust(expectedBookDTO.getId(), -quantityToDecrement));
+    }
+
+    @Test
+    void whenDecrementIsCalledWithInvalidIdThenThrowException() {
+        int quantityToDecrement = 5;
+
+        when(bookRepository.decrementQuantity(INVALID_BOOK_ID, quantityToDecrement)).thenReturn(0);
+        when(bookRepository.findById(INVALID_BOOK_ID)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> conditionalStockUpdater.adjust(INVALID_BOOK_ID, -quantityToDecrement));
+    }
+}
@@ -0,0 +1,86 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.repository.BookStockJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "bookstore.stock.concurrency=ledger",
+        "bookstore.stock.ledger.flush-interval=1h",
+        "bookstore.stock.ledger.wal.directory=target/stock-wal-test"
+})
+public class LedgerStockUpdaterConcurrencyTest extends StockUpdaterConcurrencyTest {
+
+    @Autowired
+    private LedgerStockUpdater ledgerStockUpdater;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookStockJdbcRepository bookStockJdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void whenBookIsReleasedThenItsStockIsReadBackOnlyAfterTheReleasingTransactionCommits() throws Exception {
+        Book book = bookRepository.save(BookMapper.INSTANCE.toModel(BookDTOBuilder.builder()
+                .id(null)
+                .title("Released Stock")
+                .quantity(10)
+                .max(20)
+                .build()
+                .toBookDTO()));
+        ledgerStockUpdater.adjust(book.getId(), -1);
+
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<Book> adjusted = new TransactionTemplate(transactionManager).execute(status -> {
+                ledgerStockUpdater.release(List.of(book.getId()));
+                bookStockJdbcRepository.adjustQuantities(List.of(new StockAdjustmentDTO(book.getId(), -5)));
+                Future<Book> waiting = client.submit(() -> ledgerStockUpdater.adjust(book.getId(), -1));
+                assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+                return waiting;
+            });
+
+            assertThat(adjusted.get(5, TimeUnit.SECONDS).getQuantity(), is(equalTo(3)));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Override
+    protected Book reload(Long id) {
+        ledgerStockUpdater.flush();
+        return super.reload(id);
+    }
+
+    @Override
+    protected void assertVersionAfterWrites(Book book, long writes) {
+        assertThat(book.getVersion(), greaterThan(0L));
+        assertThat(book.getVersion(), lessThanOrEqualTo(writes));
+    }
+}
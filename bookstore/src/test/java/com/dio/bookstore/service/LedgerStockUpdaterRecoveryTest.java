@@ -0,0 +1,143 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.cache.CatalogVersion;
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.repository.BookStockJdbcRepository;
+import com.dio.bookstore.repository.StockLedgerCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@SpringBootTest
+public class LedgerStockUpdaterRecoveryTest {
+
+    @TempDir
+    Path walDirectory;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookStockJdbcRepository bookStockJdbcRepository;
+
+    @Autowired
+    private StockLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void whenProcessStopsBeforeFlushingThenTheLogIsReplayedExactlyOnce() throws Exception {
+        Book book = bookRepository.save(BookMapper.INSTANCE.toModel(BookDTOBuilder.builder()
+                .id(null)
+                .title("Recovered Stock")
+                .quantity(10)
+                .max(20)
+                .build()
+                .toBookDTO()));
+
+        LedgerStockUpdater crashed = newUpdater();
+        crashed.start();
+        crashed.adjust(book.getId(), -3);
+        crashed.adjust(book.getId(), 5);
+        crashed.adjust(book.getId(), -1);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getQuantity(), is(equalTo(10)));
+
+        LedgerStockUpdater restarted = newUpdater();
+        restarted.start();
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getQuantity(), is(equalTo(11)));
+        restarted.stop();
+
+        LedgerStockUpdater restartedAgain = newUpdater();
+        restartedAgain.start();
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getQuantity(), is(equalTo(11)));
+        restartedAgain.stop();
+    }
+
+    @Test
+    void whenFlushWouldBreakTheBoundsInTheDatabaseThenThatDeltaIsDroppedAndTheBookResynced() throws Exception {
+        Book drifted = saveBook("Drifted Stock", 10);
+        Book healthy = saveBook("Healthy Stock", 10);
+        LedgerStockUpdater updater = newUpdater();
+        updater.start();
+        updater.adjust(drifted.getId(), -8);
+        updater.adjust(healthy.getId(), -2);
+        bookStockJdbcRepository.adjustQuantities(List.of(new StockAdjustmentDTO(drifted.getId(), -5)));
+
+        updater.flush();
+
+        assertThat(bookRepository.findById(drifted.getId()).orElseThrow().getQuantity(), is(equalTo(5)));
+        assertThat(bookRepository.findById(healthy.getId()).orElseThrow().getQuantity(), is(equalTo(8)));
+        assertThat(meterRegistry.get("bookstore.stock.ledger.dropped.deltas").counter().count(), is(equalTo(1.0)));
+        assertThrows(BookStockExceededException.class, () -> updater.adjust(drifted.getId(), -6));
+        assertThat(updater.adjust(drifted.getId(), -5).getQuantity(), is(equalTo(0)));
+        updater.stop();
+        assertThat(bookRepository.findById(drifted.getId()).orElseThrow().getQuantity(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenFlushingReleasedBooksFailsThenTheirDrainedDeltasAreCountedWhenTheyAreLoadedAgain() throws Exception {
+        Book book = saveBook("Released Stock", 10);
+        BookStockJdbcRepository failingOnce = spy(new BookStockJdbcRepository(jdbcTemplate));
+        LedgerStockUpdater updater = newUpdater(failingOnce);
+        updater.start();
+        updater.adjust(book.getId(), -8);
+        doThrow(new QueryTimeoutException("lock timeout")).doCallRealMethod()
+                .when(failingOnce).addQuantities(any(), any(), anyInt());
+
+        assertThrows(QueryTimeoutException.class, () -> updater.release(List.of(book.getId())));
+
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getQuantity(), is(equalTo(10)));
+        assertThrows(BookStockExceededException.class, () -> updater.adjust(book.getId(), -3));
+        assertThat(updater.adjust(book.getId(), -2).getQuantity(), is(equalTo(0)));
+        updater.stop();
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getQuantity(), is(equalTo(0)));
+    }
+
+    private Book saveBook(String title, int quantity) {
+        return bookRepository.save(BookMapper.INSTANCE.toModel(BookDTOBuilder.builder()
+                .id(null)
+                .title(title)
+                .quantity(quantity)
+                .max(20)
+                .build()
+                .toBookDTO()));
+    }
+
+    private LedgerStockUpdater newUpdater() {
+        return newUpdater(bookStockJdbcRepository);
+    }
+
+    private LedgerStockUpdater newUpdater(BookStockJdbcRepository stockRepository) {
+        return new LedgerStockUpdater(bookRepository, stockRepository, checkpointRepository,
+                new CatalogVersion(), transactionManager, meterRegistry, 4, Duration.ofHours(1), walDirectory.toString(), true);
+    }
+}
@@ -0,0 +1,10 @@
+package com.dio.bookstore.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "bookstore.stock.concurrency=optimistic",
+        "bookstore.stock.optimistic.max-attempts=100"
+})
+public class OptimisticStockUpdaterConcurrencyTest extends StockUpdaterConcurrencyTest {
+}
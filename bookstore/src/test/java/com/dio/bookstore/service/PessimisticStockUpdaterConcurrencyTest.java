@@ -0,0 +1,9 @@
+package com.dio.bookstore.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "bookstore.stock.concurrency=pessimistic"
+})
+public class PessimisticStockUpdaterConcurrencyTest extends StockUpdaterConcurrencyTest {
+}
@@ -0,0 +1,134 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.StockHoldDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.exceptions.StockHoldNotFoundException;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.BookRepository;
+import com.dio.bookstore.repository.StockHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "bookstore.stock.holds.expiry-retry-delay=200ms")
+public class StockReservationServiceTest {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        stockHoldRepository.deleteAll();
+        bookRepository.deleteAll();
+        book = bookRepository.save(BookMapper.INSTANCE.toModel(BookDTOBuilder.builder().id(null).max(50).quantity(10).build().toBookDTO()));
+    }
+
+    @Test
+    void whenHoldIsPlacedThenItsQuantityIsNoLongerAvailable() throws Exception {
+        stockReservationService.hold(book.getId(), 8, Duration.ofMinutes(1));
+
+        assertThat(quantity(), is(equalTo(2)));
+        assertThrows(BookStockExceededException.class, () -> stockReservationService.hold(book.getId(), 3, Duration.ofMinutes(1)));
+        assertThat(quantity(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenHoldIsCommittedThenStockStaysTakenAndTheHoldIsGone() throws Exception {
+        StockHoldDTO hold = stockReservationService.hold(book.getId(), 4, Duration.ofMinutes(1));
+
+        stockReservationService.commit(hold.getId());
+
+        assertThat(quantity(), is(equalTo(6)));
+        assertThat(stockHoldRepository.existsById(hold.getId()), is(false));
+        assertThrows(StockHoldNotFoundException.class, () -> stockReservationService.release(hold.getId()));
+    }
+
+    @Test
+    void whenHoldIsReleasedThenStockIsReturned() throws Exception {
+        StockHoldDTO hold = stockReservationService.hold(book.getId(), 4, Duration.ofMinutes(1));
+
+        stockReservationService.release(hold.getId());
+
+        assertThat(quantity(), is(equalTo(10)));
+        assertThat(stockHoldRepository.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    void whenReleasedStockDoesNotFitThenTheHoldIsKept() throws Exception {
+        StockHoldDTO hold = stockReservationService.hold(book.getId(), 4, Duration.ofMinutes(1));
+        Book restocked = bookRepository.findById(book.getId()).orElseThrow();
+        restocked.setQuantity(48);
+        bookRepository.save(restocked);
+
+        assertThrows(BookStockExceededException.class, () -> stockReservationService.release(hold.getId()));
+
+        assertThat(quantity(), is(equalTo(48)));
+        assertThat(stockHoldRepository.existsById(hold.getId()), is(true));
+        assertThat(stockReservationService.commit(hold.getId()).getId(), is(equalTo(hold.getId())));
+    }
+
+    @Test
+    void whenHoldsExpireThenTheirStockIsReturnedTogether() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            stockReservationService.hold(book.getId(), 1, Duration.ofSeconds(1));
+        }
+        StockHoldDTO longHold = stockReservationService.hold(book.getId(), 2, Duration.ofMinutes(1));
+        assertThat(quantity(), is(equalTo(3)));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((quantity() < 8 || stockHoldRepository.count() > 1) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(quantity(), is(equalTo(8)));
+        assertThat(stockHoldRepository.findAll(), hasSize(1));
+        assertThat(stockReservationService.commit(longHold.getId()).getId(), is(equalTo(longHold.getId())));
+    }
+
+    @Test
+    void whenExpiredStockDoesNotFitThenTheHoldIsKeptAndRetried() throws Exception {
+        StockHoldDTO hold = stockReservationService.hold(book.getId(), 4, Duration.ofSeconds(1));
+        setQuantity(48);
+
+        Thread.sleep(1500);
+        assertThat(quantity(), is(equalTo(48)));
+        assertThat(stockHoldRepository.existsById(hold.getId()), is(true));
+
+        setQuantity(40);
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((quantity() < 44 || stockHoldRepository.existsById(hold.getId())) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(quantity(), is(equalTo(44)));
+        assertThat(stockHoldRepository.existsById(hold.getId()), is(false));
+        assertThrows(StockHoldNotFoundException.class, () -> stockReservationService.commit(hold.getId()));
+    }
+
+    private void setQuantity(int quantity) {
+        Book restocked = bookRepository.findById(book.getId()).orElseThrow();
+        restocked.setQuantity(quantity);
+        bookRepository.save(restocked);
+    }
+
+    private int quantity() {
+        return bookRepository.findById(book.getId()).orElseThrow().getQuantity();
+    }
+}
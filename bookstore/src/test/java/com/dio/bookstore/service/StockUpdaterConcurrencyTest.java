@@ -0,0 +1,98 @@
+package com.dio.bookstore.service;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+abstract class StockUpdaterConcurrencyTest {
+
+    private static final int CLIENTS = 8;
+
+    @Autowired
+    private StockUpdater stockUpdater;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void whenConcurrentDecrementsHitTheSameBookThenNoUpdateIsLost() throws Exception {
+        Book book = saveBook(40, 50);
+
+        List<Boolean> outcomes = decrementConcurrently(book.getId(), 40);
+
+        assertThat(outcomes.stream().filter(applied -> applied).count(), is(equalTo(40L)));
+        Book reloadedBook = reload(book.getId());
+        assertThat(reloadedBook.getQuantity(), is(equalTo(0)));
+        assertVersionAfterWrites(reloadedBook, 40);
+    }
+
+    @Test
+    void whenConcurrentDecrementsExceedTheStockThenOnlyTheAvailableUnitsAreTaken() throws Exception {
+        Book book = saveBook(10, 50);
+
+        List<Boolean> outcomes = decrementConcurrently(book.getId(), 24);
+
+        assertThat(outcomes.stream().filter(applied -> applied).count(), is(equalTo(10L)));
+        assertThat(reload(book.getId()).getQuantity(), is(equalTo(0)));
+    }
+
+    protected Book reload(Long id) {
+        return bookRepository.findById(id).orElseThrow();
+    }
+
+    protected void assertVersionAfterWrites(Book book, long writes) {
+        assertThat(book.getVersion(), is(equalTo(writes)));
+    }
+
+    private Book saveBook(int quantity, int max) {
+        Book book = BookMapper.INSTANCE.toModel(BookDTOBuilder.builder()
+                .id(null)
+                .title("Contended " + UUID.randomUUID())
+                .quantity(quantity)
+                .max(max)
+                .build()
+                .toBookDTO());
+        return bookRepository.save(book);
+    }
+
+    private List<Boolean> decrementConcurrently(Long id, int decrements) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Callable<Boolean>> tasks = IntStream.range(0, decrements)
+                    .mapToObj(i -> (Callable<Boolean>) () -> {
+                        try {
+                            stockUpdater.adjust(id, -1);
+                            return true;
+                        } catch (BookStockExceededException e) {
+                            return false;
+                        }
+                    })
+                    .collect(Collectors.toList());
+            List<Boolean> outcomes = new ArrayList<>();
+            for (Future<Boolean> outcome : clients.invokeAll(tasks)) {
+                outcomes.add(outcome.get());
+            }
+            return outcomes;
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
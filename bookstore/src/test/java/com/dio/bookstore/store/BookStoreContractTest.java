@@ -0,0 +1,221 @@
+package com.dio.bookstore.store;
+
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.exceptions.BookNotFoundException;
+import com.dio.bookstore.exceptions.BookStockExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Behaviour every {@link BookStore} must share; each implementation runs it through a subclass
+ * that only selects the store. Books get unique titles and authors, so the suite can share a
+ * store with other tests.
+ */
+public abstract class BookStoreContractTest {
+
+    private static final Long MISSING_ID = Long.MAX_VALUE;
+
+    @Autowired
+    protected BookStore bookStore;
+
+    private String author;
+
+    @BeforeEach
+    void setUp() {
+        author = "Author " + UUID.randomUUID();
+    }
+
+    @Test
+    void whenBookIsSavedThenItGetsAnIdAndIsFoundByIdAndTitle() {
+        Book saved = bookStore.save(newBook("Saved", BookType.Fantasy, 10, 4));
+
+        assertThat(saved.getId(), is(notNullValue()));
+        assertThat(bookStore.findById(saved.getId()).orElseThrow(), is(equalTo(saved)));
+        assertThat(bookStore.findByTitle(saved.getTitle()).orElseThrow(), is(equalTo(saved)));
+        assertThat(bookStore.findById(MISSING_ID).isPresent(), is(false));
+        assertThat(bookStore.findByTitle("Missing " + UUID.randomUUID()).isPresent(), is(false));
+    }
+
+    @Test
+    void whenTitleIsAlreadyRegisteredThenSaveFails() {
+        Book saved = bookStore.save(newBook("Taken", BookType.Fantasy, 10, 4));
+
+        assertThrows(DataIntegrityViolationException.class, () -> bookStore.save(newBook(saved.getTitle(), BookType.Horror, 5, 1, null)));
+    }
+
+    @Test
+    void whenBooksAreInsertedTogetherThenTakenTitlesAreSkipped() {
+        Book existing = bookStore.save(newBook("Existing", BookType.Fantasy, 10, 4));
+        Book fresh = newBook("Fresh", BookType.Poetry, 10, 1);
+        Book duplicate = newBook(existing.getTitle(), BookType.Poetry, 10, 1, null);
+
+        List<Book> inserted = bookStore.insertAll(new ArrayList<>(Arrays.asList(fresh, duplicate)));
+
+        assertThat(inserted, hasSize(1));
+        assertThat(inserted.get(0).getTitle(), is(equalTo(fresh.getTitle())));
+        assertThat(bookStore.findByTitle(fresh.getTitle()).orElseThrow().getId(), is(equalTo(inserted.get(0).getId())));
+        assertThat(bookStore.findByTitle(existing.getTitle()).orElseThrow(), is(equalTo(existing)));
+    }
+
+    @Test
+    void whenBooksAreLookedUpTogetherThenMissingOnesAreLeftOut() {
+        Book first = bookStore.save(newBook("First", BookType.Fantasy, 10, 4));
+        Book second = bookStore.save(newBook("Second", BookType.Fantasy, 10, 4));
+
+        assertThat(bookStore.findAllById(Arrays.asList(first.getId(), MISSING_ID, second.getId())), containsInAnyOrder(first, second));
+        assertThat(bookStore.findByTitleIn(Arrays.asList(second.getTitle(), "Missing " + UUID.randomUUID())), contains(second));
+    }
+
+    @Test
+    void whenPageIsRequestedThenBooksAfterTheIdMatchingTheFiltersAreReturnedInOrder() {
+        Book first = bookStore.save(newBook("Page One", BookType.Fantasy, 10, 1));
+        Book second = bookStore.save(newBook("Page Two", BookType.Horror, 10, 1));
+        Book third = bookStore.save(newBook("Page Three", BookType.Fantasy, 10, 1));
+        Book fourth = bookStore.save(newBook("Page Four", BookType.Fantasy, 10, 1));
+
+        assertThat(bookStore.findPage(author, null, 0L, 10), contains(first, second, third, fourth));
+        assertThat(bookStore.findPage(author, BookType.Fantasy, first.getId(), 10), contains(third, fourth));
+        assertThat(bookStore.findPage(author, BookType.Fantasy, 0L, 2), contains(first, third));
+        assertThat(bookStore.findPage(null, null, third.getId(), 10), hasItem(fourth));
+        assertThat(bookStore.findPage(null, null, third.getId(), 10), not(hasItem(second)));
+    }
+
+    @Test
+    void whenBooksAreStreamedThenEachIsVisitedInIdOrder() {
+        Book first = bookStore.save(newBook("Streamed One", BookType.Fantasy, 10, 1));
+        Book second = bookStore.save(newBook("Streamed Two", BookType.Fantasy, 10, 1));
+        List<Book> visited = new ArrayList<>();
+
+        bookStore.forEachOrderedById(visited::add);
+
+        List<Long> ids = visited.stream().map(Book::getId).collect(Collectors.toList());
+        assertThat(ids, is(equalTo(ids.stream().sorted().collect(Collectors.toList()))));
+        assertThat(visited, hasItems(first, second));
+        assertThat(bookStore.findAll(), hasItems(first, second));
+    }
+
+    @Test
+    void whenAnyBookChangesThenTheFingerprintChanges() throws Exception {
+        Book saved = bookStore.save(newBook("Fingerprinted", BookType.Fantasy, 10, 4));
+        CatalogFingerprint initial = bookStore.fingerprint();
+
+        assertThat(bookStore.fingerprint(), is(equalTo(initial)));
+        assertThat(initial.getMaxId(), is(greaterThanOrEqualTo(saved.getId())));
+
+        bookStore.adjustQuantity(saved.getId(), 1);
+        CatalogFingerprint adjusted = bookStore.fingerprint();
+        assertThat(adjusted, is(not(equalTo(initial))));
+
+        bookStore.save(newBook("Fingerprinted New", BookType.Fantasy, 10, 4));
+        CatalogFingerprint created = bookStore.fingerprint();
+        assertThat(created, is(not(equalTo(adjusted))));
+
+        bookStore.deleteById(saved.getId());
+        assertThat(bookStore.fingerprint(), is(not(equalTo(created))));
+    }
+
+    @Test
+    void whenBookIsDeletedThenItIsGoneAndItsTitleIsFree() {
+        Book saved = bookStore.save(newBook("Deleted", BookType.Fantasy, 10, 4));
+
+        bookStore.deleteById(saved.getId());
+
+        assertThat(bookStore.findById(saved.getId()).isPresent(), is(false));
+        assertThat(bookStore.findByTitle(saved.getTitle()).isPresent(), is(false));
+        Book reused = bookStore.save(newBook(saved.getTitle(), BookType.Horror, 5, 1, null));
+        assertThat(reused.getId(), is(not(equalTo(saved.getId()))));
+    }
+
+    @Test
+    void whenQuantityIsAdjustedWithinBoundsThenTheAdjustedBookIsReturned() throws Exception {
+        Book saved = bookStore.save(newBook("Adjusted", BookType.Fantasy, 10, 4));
+
+        Book incremented = bookStore.adjustQuantity(saved.getId(), 6);
+        Book emptied = bookStore.adjustQuantity(saved.getId(), -10);
+
+        assertThat(incremented.getQuantity(), is(equalTo(10)));
+        assertThat(incremented.getVersion(), is(greaterThan(saved.getVersion())));
+        assertThat(emptied.getQuantity(), is(equalTo(0)));
+        assertThat(bookStore.findById(saved.getId()).orElseThrow().getQuantity(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenQuantityWouldLeaveItsBoundsThenNothingChanges() {
+        Book saved = bookStore.save(newBook("Bounded", BookType.Fantasy, 10, 4));
+
+        assertThrows(BookStockExceededException.class, () -> bookStore.adjustQuantity(saved.getId(), 7));
+        assertThrows(BookStockExceededException.class, () -> bookStore.adjustQuantity(saved.getId(), -5));
+        assertThrows(BookNotFoundException.class, () -> bookStore.adjustQuantity(MISSING_ID, 1));
+        assertThat(bookStore.findById(saved.getId()).orElseThrow().getQuantity(), is(equalTo(4)));
+    }
+
+    @Test
+    void whenQuantitiesAreAdjustedTogetherThenEachAdjustmentReportsWhetherItApplied() {
+        Book saved = bookStore.save(newBook("Batch", BookType.Fantasy, 10, 5));
+
+        int[] updatedRows = bookStore.adjustQuantities(Arrays.asList(
+                new StockAdjustmentDTO(saved.getId(), 4),
+                new StockAdjustmentDTO(saved.getId(), 9),
+                new StockAdjustmentDTO(saved.getId(), -1),
+                new StockAdjustmentDTO(MISSING_ID, 1)), false);
+
+        assertThat(Arrays.stream(updatedRows).boxed().collect(Collectors.toList()), contains(1, 0, 1, 0));
+        assertThat(bookStore.findById(saved.getId()).orElseThrow().getQuantity(), is(equalTo(8)));
+    }
+
+    @Test
+    void whenManyDecrementsRaceThenOnlyTheAvailableStockIsTaken() throws Exception {
+        Book saved = bookStore.save(newBook("Raced", BookType.Fantasy, 50, 20));
+        int attempts = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookStore.adjustQuantity(saved.getId(), -1);
+                    return true;
+                } catch (BookStockExceededException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int applied = 0;
+        for (Future<Boolean> result : results) {
+            applied += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(applied, is(equalTo(20)));
+        assertThat(bookStore.findById(saved.getId()).orElseThrow().getQuantity(), is(equalTo(0)));
+    }
+
+    protected Book newBook(String title, BookType genre, int max, int quantity) {
+        return newBook(title + " " + UUID.randomUUID(), genre, max, quantity, null);
+    }
+
+    protected Book newBook(String title, BookType genre, int max, int quantity, Long id) {
+        return new Book(id, title, author, max, quantity, genre, 0L);
+    }
+}
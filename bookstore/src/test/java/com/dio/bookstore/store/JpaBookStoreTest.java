@@ -0,0 +1,7 @@
+package com.dio.bookstore.store;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+public class JpaBookStoreTest extends BookStoreContractTest {
+}
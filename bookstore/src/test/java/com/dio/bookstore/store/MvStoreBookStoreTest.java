@@ -0,0 +1,62 @@
+package com.dio.bookstore.store;
+
+import com.dio.bookstore.dto.StockAdjustmentDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"bookstore.store=mvstore", "bookstore.store.mvstore.file="})
+public class MvStoreBookStoreTest extends BookStoreContractTest {
+
+    @Test
+    void whenStoreIsSelectedThenTheMvStoreImplementationIsUsed() {
+        assertThat(bookStore, is(instanceOf(MvStoreBookStore.class)));
+    }
+
+    @Test
+    void whenAtomicBatchHasAFailingAdjustmentThenNoneIsApplied() {
+        Book saved = bookStore.save(newBook("Atomic", BookType.Fantasy, 10, 5));
+
+        int[] updatedRows = bookStore.adjustQuantities(Arrays.asList(
+                new StockAdjustmentDTO(saved.getId(), 4),
+                new StockAdjustmentDTO(saved.getId(), 9)), true);
+
+        assertThat(Arrays.stream(updatedRows).boxed().collect(Collectors.toList()), contains(1, 0));
+        assertThat(bookStore.findById(saved.getId()).orElseThrow().getQuantity(), is(equalTo(5)));
+    }
+
+    @Test
+    void whenStoreIsReopenedThenBooksAndIdsSurvive(@TempDir Path directory) {
+        String file = directory.resolve("books.mv.db").toString();
+        MvStoreBookStore store = new MvStoreBookStore(file, Duration.ofSeconds(1), "conditional");
+        Book saved = store.save(newBook("Durable", BookType.Poetry, 10, 3));
+        Book deleted = store.save(newBook("Deleted Last", BookType.Poetry, 10, 3));
+        store.deleteById(deleted.getId());
+        store.close();
+
+        MvStoreBookStore reopened = new MvStoreBookStore(file, Duration.ofSeconds(1), "conditional");
+        try {
+            assertThat(reopened.findByTitle(saved.getTitle()).orElseThrow(), is(equalTo(saved)));
+            assertThat(reopened.findById(deleted.getId()).isPresent(), is(false));
+            assertThat(reopened.save(newBook("After Reopen", BookType.Poetry, 10, 3)).getId(), is(greaterThan(deleted.getId())));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void whenStockConcurrencyIsNotConditionalThenTheStoreRefusesToOpen() {
+        assertThrows(IllegalStateException.class, () -> new MvStoreBookStore("", Duration.ofSeconds(1), "ledger"));
+    }
+}
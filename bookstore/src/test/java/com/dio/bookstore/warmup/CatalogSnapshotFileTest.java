@@ -0,0 +1,57 @@
+package com.dio.bookstore.warmup;
+
+import com.dio.bookstore.builder.BookDTOBuilder;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.store.CatalogFingerprint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class CatalogSnapshotFileTest {
+
+    private static final CatalogFingerprint FINGERPRINT = new CatalogFingerprint(2L, 2L, 7L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenSnapshotIsWrittenThenItIsReadBackForTheSameFingerprint() {
+        CatalogSnapshotFile snapshotFile = new CatalogSnapshotFile(directory.resolve("catalog.snapshot"));
+        CatalogSnapshotFile.Snapshot snapshot = snapshot();
+
+        snapshotFile.write(snapshot);
+
+        assertThat(snapshotFile.read(FINGERPRINT).orElseThrow(), is(equalTo(snapshot)));
+        assertThat(snapshotFile.read(new CatalogFingerprint(2L, 2L, 8L)).isPresent(), is(false));
+        assertThat(new CatalogSnapshotFile(directory.resolve("missing.snapshot")).read(FINGERPRINT).isPresent(), is(false));
+    }
+
+    @Test
+    void whenSnapshotIsDamagedThenItIsIgnored() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile snapshotFile = new CatalogSnapshotFile(file);
+        snapshotFile.write(snapshot());
+        byte[] contents = Files.readAllBytes(file);
+        contents[contents.length - 10] ^= 1;
+        Files.write(file, contents);
+
+        assertThat(snapshotFile.read(FINGERPRINT).isPresent(), is(false));
+
+        Files.write(file, new byte[]{0x42, 0x4b});
+        assertThat(snapshotFile.read(FINGERPRINT).isPresent(), is(false));
+    }
+
+    private static CatalogSnapshotFile.Snapshot snapshot() {
+        BookDTO senhorDosAneis = BookDTOBuilder.builder().id(1L).build().toBookDTO();
+        BookDTO hobbit = BookDTOBuilder.builder().id(2L).title("O Hobbit").quantity(7).build().toBookDTO();
+        return new CatalogSnapshotFile.Snapshot(FINGERPRINT, List.of(senhorDosAneis, hobbit), List.of(hobbit.getTitle()));
+    }
+}
@@ -0,0 +1,145 @@
+package com.dio.bookstore.warmup;
+
+import com.dio.bookstore.analytics.StockAnalytics;
+import com.dio.bookstore.cache.BookTitleCache;
+import com.dio.bookstore.cache.CatalogResponseCache;
+import com.dio.bookstore.dto.BookDTO;
+import com.dio.bookstore.entity.Book;
+import com.dio.bookstore.enums.BookChangeType;
+import com.dio.bookstore.enums.BookType;
+import com.dio.bookstore.event.BookChangedEvent;
+import com.dio.bookstore.mapper.BookMapper;
+import com.dio.bookstore.replenishment.LowStockTracker;
+import com.dio.bookstore.search.BookSearchIndex;
+import com.dio.bookstore.service.BookService;
+import com.dio.bookstore.service.ConditionalStockUpdater;
+import com.dio.bookstore.store.BookStore;
+import com.dio.bookstore.store.MvStoreBookStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class CatalogWarmupTest {
+
+    private static final int BOOKS = 25;
+
+    @TempDir
+    Path directory;
+
+    private MvStoreBookStore bookStore;
+    private List<Book> books;
+    private SimpleMeterRegistry meterRegistry;
+    private BookSearchIndex bookSearchIndex;
+    private BookTitleCache bookTitleCache;
+    private LowStockTracker lowStockTracker;
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new MvStoreBookStore("", Duration.ofSeconds(1), "conditional");
+        books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book(null, "Livro " + i, "Autor " + i, 10, 5, BookType.Fantasy, 0L));
+        }
+        books.get(7).setQuantity(1);
+        bookStore.insertAll(books);
+        bookStore.deleteById(books.get(10).getId());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookStore.close();
+    }
+
+    @Test
+    void whenThereIsNoSnapshotThenTheCatalogIsReadFromTheStoreInRanges() {
+        warmup(bookStore, 100, "").warm();
+
+        assertThat(bookSearchIndex.size(), is(equalTo(BOOKS - 1)));
+        assertThat(bookSearchIndex.search("livro 24", 10), contains(books.get(24).getId()));
+        assertThat(bookSearchIndex.search("livro 10", 10), is(empty()));
+        assertThat(bookTitleCache.get(books.get(0).getTitle(), title -> null), is(equalTo(toDTO(books.get(0)))));
+        assertThat(lowStockTracker.list(0L, 10), contains(toDTO(books.get(7))));
+        assertThat(meterRegistry.get("bookstore.warmup.duration").tag("source", "store").timer().count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenSnapshotMatchesTheStoreThenItIsRestoredWithHotTitlesCachedFirst() {
+        String snapshotFile = directory.resolve("catalog.snapshot").toString();
+        CatalogWarmup previousRun = warmup(bookStore, 100, snapshotFile);
+        previousRun.warm();
+        String hottestTitle = bookTitleCache.hottestTitles().get(0);
+        previousRun.saveSnapshot();
+
+        BookStore spiedStore = spy(bookStore);
+        warmup(spiedStore, 1, snapshotFile).warm();
+
+        verify(spiedStore, never()).findPage(any(), any(), anyLong(), anyInt());
+        assertThat(bookSearchIndex.size(), is(equalTo(BOOKS - 1)));
+        assertThat(bookTitleCache.hottestTitles(), contains(hottestTitle));
+        assertThat(meterRegistry.get("bookstore.warmup.duration").tag("source", "snapshot").timer().count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenStoreChangedSinceTheSnapshotThenTheStoreIsRead() throws Exception {
+        String snapshotFile = directory.resolve("catalog.snapshot").toString();
+        warmup(bookStore, 100, snapshotFile).saveSnapshot();
+        Book adjusted = bookStore.adjustQuantity(books.get(3).getId(), 1);
+
+        warmup(bookStore, 100, snapshotFile).warm();
+
+        assertThat(bookSearchIndex.search(adjusted.getTitle(), 1), contains(adjusted.getId()));
+        assertThat(meterRegistry.get("bookstore.warmup.duration").tag("source", "store").timer().count(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenBookIsDeletedWhileWarmingThenItIsLeftOut() {
+        CatalogWarmup warmup = warmup(bookStore, 100, "");
+        BookDTO deleted = toDTO(books.get(5));
+
+        BookChangedEvent deletion = new BookChangedEvent(BookChangeType.DELETED, deleted);
+        bookSearchIndex.onBookChanged(deletion);
+        bookTitleCache.onBookChanged(deletion);
+        warmup.warm();
+
+        assertThat(bookSearchIndex.search(deleted.getTitle(), 10), is(empty()));
+        assertThat(bookTitleCache.get(deleted.getTitle(), title -> null), is(nullValue()));
+    }
+
+    private CatalogWarmup warmup(BookStore store, int titleCacheSize, String snapshotFile) {
+        bookSearchIndex = new BookSearchIndex();
+        bookTitleCache = new BookTitleCache(titleCacheSize, meterRegistry);
+        lowStockTracker = new LowStockTracker(event -> {
+        }, mock(BookService.class), meterRegistry, 0.2);
+        return new CatalogWarmup(store, bookSearchIndex, bookTitleCache, lowStockTracker,
+                new StockAnalytics(store, new ConditionalStockUpdater(store), meterRegistry, Duration.ofMinutes(10)),
+                new DefaultListableBeanFactory().getBeanProvider(CatalogResponseCache.class),
+                meterRegistry, snapshotFile, 3, 4);
+    }
+
+    private static BookDTO toDTO(Book book) {
+        return BookMapper.INSTANCE.toDTO(book);
+    }
+}